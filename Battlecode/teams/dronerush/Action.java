@@ -6,11 +6,45 @@ import battlecode.common.GameActionException;
  * An encapsulation of an action to perform during a particular round. Actions are meant to be complex--while MoveAroundAction is a
  * valid kind of action, Scout, Retreat, and AttackMove are better actions.
  * 
+ * Each action also keeps an estimate of how many bytecodes it takes to run, learned from its recent runs (see
+ * BaseRobotHandler.performActions()), so we can skip an action that wouldn't finish before the end of the round. Actions that are
+ * known to be expensive can declare a starting estimate, so they aren't tried blind the first time.
+ * 
  */
-public interface Action {
+public abstract class Action {
+
+	private int estimatedCost;
+
+	public Action() {
+		this(0);
+	}
+
+	public Action(int declaredCost) {
+		this.estimatedCost = declaredCost;
+	}
+
 	/**
 	 * @return true if the action was performed and no further actions should be performed (ie because the core delay was incremented)
 	 */
 	public abstract boolean run() throws GameActionException;
 
+	public int getEstimatedCost() {
+		return estimatedCost;
+	}
+
+	// the estimate follows the expensive runs right away, and comes back down slowly after them. an action's cost depends on
+	// how busy things are around us, and underestimating is the mistake that costs a turn.
+	void observeCost(int bytecodes) {
+		if (bytecodes > estimatedCost) {
+			estimatedCost = bytecodes;
+		} else {
+			estimatedCost -= (estimatedCost - bytecodes) >> 3;
+		}
+	}
+
+	// we skipped it for being too expensive. forget a little, so one unlucky spike doesn't lock it out for good.
+	void onSkipped() {
+		estimatedCost -= estimatedCost >> 3;
+	}
+
 }
@@ -19,6 +19,16 @@ public abstract class BaseBuildingHandler extends BaseRobotHandler {
 		return 1500;
 	}
 
+	// buildings can't run away, so whenever one sees enemies it puts itself on the distress board. this happens first thing in
+	// the turn, so it gets done even when the rest of the turn runs long.
+	@Override
+	protected void reportDistress() throws GameActionException {
+		int numEnemies = getNearbyEnemies().length;
+		if (numEnemies > 0) {
+			BroadcastInterface.reportDistress(rc, rc.getLocation(), numEnemies);
+		}
+	}
+
 	@Override
 	protected boolean distributeSupply() throws GameActionException {
 		boolean foundSupplyTransfer = super.distributeSupply();
@@ -44,6 +54,7 @@ public abstract class BaseBuildingHandler extends BaseRobotHandler {
 				}
 			}
 			if (bestTarget != null) {
+				checkTurn();
 				rc.transferSupplies((int) rc.getSupplyLevel(), bestTarget);
 				return true;
 			}
@@ -53,7 +64,7 @@ public abstract class BaseBuildingHandler extends BaseRobotHandler {
 
 	// TODO: maybe this should accept a predicate function? like: new SpawnUnitUntilPredicate(new Predicate(){});
 	// that way we could spawn beavers until we have 30 beavers. or we could spawn soldiers and bashers until there's a 3:1 ratio
-	class SpawnUnit implements Action {
+	class SpawnUnit extends Action {
 		private RobotType type;
 		private boolean spawnTowardEnemy;
 		private Direction[] safeSpawningDirs;
@@ -76,6 +87,7 @@ public abstract class BaseBuildingHandler extends BaseRobotHandler {
 					spawnDir = findSpawnAwayFromEnemy(type);
 				}
 				if (spawnDir != null) {
+					checkTurn();
 					rc.spawn(spawnDir, type);
 					return true;
 				}
@@ -1,5 +1,6 @@
 package dronerush;
 
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
 
@@ -98,10 +99,15 @@ public abstract class BaseRobotHandler {
 		// here's the breakdown for this robot:
 		// 1. init(). makes sense.
 		// then we start looping.
-		// 2. chooseActions() picks a ranked set of actions and returns them as a queue. this is where decision-making happens.
-		// 3. performActions() performs each action in the action queue. (by calling Action.run())
-		// 4. distributeSupply(), which obviously distributes supply.
-		// 5. onExcessBytecodes() is called if this robot has used less than 2000 bytecodes.
+		// 2. reportToCensus() adds this robot to the shared unit count.
+		// 3. reportDistress() calls for help if this robot is under attack. only buildings do this for now.
+		// 4. chooseActions() picks a ranked set of actions and returns them as a queue. this is where decision-making happens.
+		// 5. performActions() performs each action in the action queue. (by calling Action.run())
+		// 6. distributeSupply(), which obviously distributes supply.
+		// 7. reportSightings() writes the enemies we can see into the shared sighting log, if there's time.
+		// 8. recordSensedTerrain() writes newly sensed terrain into the shared terrain map, if there's time.
+		// 9. disambiguateSymmetry() checks the candidate map configurations against the terrain we've seen, if there's time.
+		// 10. onExcessBytecodes() is called if this robot has used less than 2000 bytecodes, until it runs out of work.
 		//
 		// when adding functionality, I would recommend overriding one of the above methods. Actions are represented as
 		// the enum Action, so subclasses with a broader field of actions should create new subclasses of Action.
@@ -115,18 +121,46 @@ public abstract class BaseRobotHandler {
 			onException(ex);
 		}
 		while (true) {
+			turnRound = Clock.getRoundNum();
 			try {
+				rc.setIndicatorString(0, "reportToCensus()");
+				reportToCensus();
+				rc.setIndicatorString(0, "reportDistress()");
+				reportDistress();
 				rc.setIndicatorString(0, "chooseActions()");
 				List<Action> actions = chooseActions();
 				rc.setIndicatorString(0, "performActions()");
 				performActions(actions);
 				rc.setIndicatorString(0, "distributeSupply()");
 				distributeSupply();
+				if (Clock.getBytecodeNum() < maxBytecodesToUse()) {
+					rc.setIndicatorString(0, "reportSightings()");
+					reportSightings();
+				}
+				if (Clock.getBytecodeNum() < maxBytecodesToUse()) {
+					rc.setIndicatorString(0, "recordSensedTerrain()");
+					recordSensedTerrain();
+				}
+				if (Clock.getBytecodeNum() < maxBytecodesToUse()) {
+					rc.setIndicatorString(0, "disambiguateSymmetry()");
+					disambiguateSymmetry();
+				}
 				rc.setIndicatorString(0, "onExcessBytecodes()");
-				while (Clock.getBytecodeNum() < maxBytecodesToUse()) {
-					onExcessBytecodes();
+				while (Clock.getBytecodeNum() < maxBytecodesToUse() && Clock.getRoundNum() == turnRound) {
+					if (!onExcessBytecodes()) {
+						// nothing left worth doing. yielding early saves the supply the extra bytecodes would cost.
+						break;
+					}
+				}
+				// if we ran over into the next round, we're already in our next turn, so don't throw it away by yielding
+				if (Clock.getRoundNum() == turnRound) {
+					rc.yield();
+				} else {
+					onOverrun();
 				}
-				rc.yield();
+			} catch (StaleTurnException ex) {
+				// we were about to act on an old picture of the board. start over with a new one.
+				onOverrun();
 			} catch (GameActionException ex) {
 				rc.setIndicatorString(0, "onException()");
 				onException(ex);
@@ -134,52 +168,438 @@ public abstract class BaseRobotHandler {
 		}
 	}
 
+	// the rest of the turn (mostly distributeSupply()) needs about this many bytecodes before we can yield
+	private static final int YIELD_RESERVE = 500;
+
+	// the round this turn started in. the per-round caches (getNearbyEnemies() and friends) refresh themselves when the round
+	// changes, but whatever we already decided with them doesn't, so if we run over into the next round, acting on those decisions
+	// can mean moving into a tile that's taken now, or handing supply to a robot that left. anything that changes the game calls
+	// checkTurn() first.
+	private int turnRound;
+	private int numOverruns = 0;
+
+	protected void checkTurn() {
+		int roundNum = Clock.getRoundNum();
+		if (roundNum != turnRound) {
+			throw new StaleTurnException(turnRound, roundNum);
+		}
+	}
+
+	// overruns should be rare, so make them easy to spot: a per-robot count in the indicator strings, and a team-wide count in
+	// the broadcast array (see BroadcastInterface.reportOverrun())
+	private void onOverrun() {
+		numOverruns++;
+		rc.setIndicatorString(2, "overran " + numOverruns + " turns, last in round " + turnRound);
+		try {
+			BroadcastInterface.reportOverrun(rc);
+		} catch (GameActionException e) {
+			onException(e);
+		}
+	}
+
 	public void performActions(List<Action> actionQueue) throws GameActionException {
+		int bytecodeLimit = rc.getType().bytecodeLimit;
+		int deadline = bytecodeLimit - YIELD_RESERVE;
 		for (Action actionToAttempt : actionQueue) {
-			if (actionToAttempt.run()) {
+			int before = Clock.getBytecodeNum();
+			if (before + actionToAttempt.getEstimatedCost() > deadline) {
+				// it probably wouldn't finish this round. something cheaper further down the queue might.
+				actionToAttempt.onSkipped();
+				continue;
+			}
+			boolean result;
+			try {
+				result = actionToAttempt.run();
+			} finally {
+				// this also counts runs that checkTurn() cut short. those are the ones that overran the round, so they're exactly
+				// what the estimate has to learn from.
+				int after = Clock.getBytecodeNum();
+				if (Clock.getRoundNum() != turnRound) {
+					// it ran over into the next round, where the count starts over
+					after += bytecodeLimit * (Clock.getRoundNum() - turnRound);
+				}
+				actionToAttempt.observeCost(after - before);
+			}
+			if (result) {
 				break;
 			}
 		}
 	}
 
+	// every robot (except missiles, which can't spare the bytecodes) counts itself once per round
+	protected void reportToCensus() throws GameActionException {
+		BroadcastInterface.reportAlive(rc, rc.getType());
+	}
+
+	// puts this robot on the distress board if it needs help. units can fight or run, so by default they don't ask.
+	protected void reportDistress() throws GameActionException {
+	}
+
+	// in a big fight there are too many enemies to report them all, so just do a few each turn, starting somewhere different each
+	// time so they all get reported eventually
+	private static final int MAX_SIGHTINGS_PER_TURN = 4;
+
+	protected void reportSightings() throws GameActionException {
+		RobotInfo[] nearbyEnemies = getNearbyEnemies();
+		int n = nearbyEnemies.length;
+		if (n == 0) {
+			return;
+		}
+		int roundNum = Clock.getRoundNum();
+		int start = roundNum % n;
+		int reported = 0;
+		for (int i = 0; i < n && reported < MAX_SIGHTINGS_PER_TURN; i++) {
+			if (BroadcastInterface.recordSighting(rc, nearbyEnemies[(start + i) % n], roundNum)) {
+				reported++;
+			}
+		}
+	}
+
+	// roughly how much a unit is worth in a fight. by lanchester's square law, an army's strength goes like its damage per turn
+	// times its health, so that's what this is (scaled down to fit in a broadcast channel).
+	// launchers don't attack themselves, so count them as if they hit with a missile every few turns.
+	private static final int LAUNCHER_MISSILE_PERIOD = 4;
+
+	public static int combatValue(RobotType type) {
+		double damagePerTurn;
+		if (type == RobotType.LAUNCHER) {
+			damagePerTurn = RobotType.MISSILE.attackPower / LAUNCHER_MISSILE_PERIOD;
+		} else if (type.attackDelay > 0) {
+			damagePerTurn = type.attackPower / type.attackDelay;
+		} else {
+			return 0;
+		}
+		return (int) (damagePerTurn * type.maxHealth / 10);
+	}
+
+	public static final int FIGHTER_SIGHTINGS = BroadcastInterface.sightingTypeMask(RobotType.SOLDIER, RobotType.BASHER,
+			RobotType.DRONE, RobotType.TANK, RobotType.LAUNCHER, RobotType.COMMANDER);
+	public static final int WORKER_SIGHTINGS = BroadcastInterface.sightingTypeMask(RobotType.BEAVER, RobotType.MINER);
+
+	// a cached lookup into the sighting log. scanning the log costs a few hundred bytecodes, so we only do it every few rounds.
+	public class SightingFinder {
+		private final int typeMask;
+		private final int maxAge;
+		private final int lookupInterval;
+
+		private MapLocation cachedResult = null;
+		private int lastLookupRound = -1000;
+		private int ignoreBeforeRound = 0;
+
+		public SightingFinder(int typeMask, int maxAge, int lookupInterval) {
+			this.typeMask = typeMask;
+			this.maxAge = maxAge;
+			this.lookupInterval = lookupInterval;
+		}
+
+		public MapLocation find(MapLocation from) throws GameActionException {
+			int roundNum = Clock.getRoundNum();
+			if (roundNum - lastLookupRound >= lookupInterval) {
+				lastLookupRound = roundNum;
+				cachedResult = BroadcastInterface.findNearestSighting(rc, from, typeMask,
+						Math.max(roundNum - maxAge, ignoreBeforeRound));
+			}
+			return cachedResult;
+		}
+
+		// we went to look and nothing was there. only trust sightings newer than this from now on.
+		public void forgetOldSightings() {
+			ignoreBeforeRound = Clock.getRoundNum() + 1;
+			cachedResult = null;
+			lastLookupRound = -1000;
+		}
+	}
+
 	public abstract List<Action> chooseActions() throws GameActionException;
 
-	public void onExcessBytecodes() throws GameActionException {
-		doPathfinding();
+	// returns false if there's nothing useful left to do this turn
+	public boolean onExcessBytecodes() throws GameActionException {
+		if (runTasks()) {
+			return true;
+		}
+		if (localPlanner != null && localPlanner.isSearching()) {
+			localPlanner.work(maxBytecodesToUse());
+			return true;
+		}
+		return doJob();
+	}
+
+	// the job board (see BroadcastInterface.postJob()). priorities only change when the hq posts something or a job gets
+	// finished, so we read them once a round.
+	private final int[] jobPriorities = new int[BroadcastInterface.NUM_JOBS];
+	private int jobPrioritiesRound = -1;
+
+	private boolean doJob() throws GameActionException {
+		int roundNum = Clock.getRoundNum();
+		if (jobPrioritiesRound != roundNum) {
+			jobPrioritiesRound = roundNum;
+			for (int job = 0; job < jobPriorities.length; job++) {
+				jobPriorities[job] = BroadcastInterface.getJobPriority(rc, job);
+			}
+		}
+		int best = -1;
+		for (int job = 0; job < jobPriorities.length; job++) {
+			if (jobPriorities[job] > 0 && (best < 0 || jobPriorities[job] > jobPriorities[best])) {
+				best = job;
+			}
+		}
+		switch (best) {
+		case BroadcastInterface.JOB_PATHFINDING:
+			if (doPathfinding()) {
+				return true;
+			}
+			// both queues are empty for now. let the other jobs have a turn.
+			jobPriorities[best] = 0;
+			return true;
+		case BroadcastInterface.JOB_ORE_SURVEY:
+			if (surveyOre()) {
+				jobPriorities[best] = 0;
+			}
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	// the richest ore cell pointer only hears about cells as they're reported, so once its cell runs dry, it can sit on a
+	// mediocre one while a better cell that was reported a while ago goes unnoticed. this sweeps the whole ore grid a chunk at a
+	// time and points it at the best cell again. returns true when the sweep is done.
+	private boolean surveyOre() throws GameActionException {
+		int job = BroadcastInterface.JOB_ORE_SURVEY;
+		int cell = BroadcastInterface.getJobCursor(rc, job);
+		// the best so far, as (cell << 16) | (ore + 1), like the pointer itself
+		int best = BroadcastInterface.getJobScratch(rc, job);
+		for (; cell < BroadcastInterface.ORE_CELLS; cell++) {
+			if (Clock.getBytecodeNum() > maxBytecodesToUse()) {
+				BroadcastInterface.saveJobProgress(rc, job, cell, best);
+				return false;
+			}
+			int value = BroadcastInterface.readOre(rc, cell) + 1;
+			if (value > (best & 0xFFFF)) {
+				best = (cell << 16) | value;
+			}
+		}
+		// cells get reported during the sweep too, so only move the pointer if what it points at now is worse than our find
+		if (best != 0) {
+			int current = BroadcastInterface.getRichestOreCell(rc);
+			if (current < 0 || BroadcastInterface.readOre(rc, current) + 1 < (best & 0xFFFF)) {
+				BroadcastInterface.setRichestOreCell(rc, best >>> 16, (best & 0xFFFF) - 1);
+			}
+		}
+		BroadcastInterface.finishJob(rc, job);
+		return true;
+	}
+
+	// long computations, spread over as many turns as they need (see Task). they run one after the other, in the order they were
+	// scheduled.
+	private final LinkedList<Task> tasks = new LinkedList<Task>();
+	private int lastTaskRound = -1;
+
+	protected void schedule(Task task) {
+		tasks.add(task);
 	}
 
-	protected void doPathfinding() throws GameActionException {
+	// gives the pending tasks a turn, at most once per round, so they can't starve everything else in onExcessBytecodes().
+	// returns true if it did any work.
+	private boolean runTasks() throws GameActionException {
+		int roundNum = Clock.getRoundNum();
+		if (tasks.isEmpty() || lastTaskRound == roundNum) {
+			return false;
+		}
+		lastTaskRound = roundNum;
+		while (!tasks.isEmpty() && Clock.getBytecodeNum() < maxBytecodesToUse()) {
+			if (!tasks.getFirst().work(maxBytecodesToUse())) {
+				break;
+			}
+			tasks.removeFirst();
+		}
+		return true;
+	}
+
+	// for getting around while the BFS is still spreading out. most robots never need it, so it's created lazily.
+	protected LocalPlanner getLocalPlanner() {
+		if (localPlanner == null) {
+			localPlanner = new LocalPlanner(rc, this);
+		}
+		return localPlanner;
+	}
+
+	private LocalPlanner localPlanner = null;
+
+	// takes a step along the local plan toward the target, if we have one. otherwise it starts planning (in onExcessBytecodes()),
+	// and returns false, so the caller can do something else in the meantime.
+	protected boolean moveWithLocalPlanner(MapLocation target, boolean avoidTowers) throws GameActionException {
+		LocalPlanner planner = getLocalPlanner();
+		Direction nextDir = planner.nextStep(target);
+		if (nextDir != null) {
+			if (rc.canMove(nextDir) && !isReservedByAlly(rc.getLocation().add(nextDir))) {
+				checkTurn();
+				rc.move(nextDir);
+				localPlanBlockedTurns = 0;
+				return true;
+			}
+			// probably an ally in the way. keep the plan for a turn or two in case it clears up, then plan around it.
+			if (rc.isCoreReady() && ++localPlanBlockedTurns > MAX_LOCAL_PLAN_BLOCKED_TURNS) {
+				planner.invalidate();
+				localPlanBlockedTurns = 0;
+			}
+			return false;
+		}
+		planner.request(target, avoidTowers);
+		return false;
+	}
+
+	private static final int MAX_LOCAL_PLAN_BLOCKED_TURNS = 2;
+	private int localPlanBlockedTurns = 0;
+
+	// returns false if both queues were empty
+	protected boolean doPathfinding() throws GameActionException {
 		// this method tends to use between 1000 and 3000 bytecodes per iteration =/
 		// pick a location, then do pathfinding
+		// the ground queue stays busy for a long time (tiles next to unknown terrain get re-enqueued), so take turns with the air queue
+		doAirPathfindingNext = !doAirPathfindingNext;
+		if (doAirPathfindingNext) {
+			int[] coords = BroadcastInterface.dequeueAirPathfindingQueue(rc);
+			if (coords != null) {
+				updateAirDistances(new MapLocation(coords[0], coords[1]));
+				return true;
+			}
+		}
 		int[] coords = BroadcastInterface.dequeuePathfindingQueue(rc);
 		if (coords != null) {
 			MapLocation curLoc = new MapLocation(coords[0], coords[1]);
 			updateDistances(curLoc);
+			return true;
+		}
+		if (!doAirPathfindingNext) {
+			// it was the ground queue's turn, but the air queue might still have work
+			coords = BroadcastInterface.dequeueAirPathfindingQueue(rc);
+			if (coords != null) {
+				updateAirDistances(new MapLocation(coords[0], coords[1]));
+				return true;
+			}
+		}
+		// on round 0 the hq might not have seeded the queues yet
+		if (!isPathfindingDoneReported && Clock.getRoundNum() > 0) {
+			isPathfindingDoneReported = true;
+			if (BroadcastInterface.reportPathfindingDone(rc)) {
+				// the tournament runner scrapes this out of the match output
+				System.out.println("distance fields converged at round " + Clock.getRoundNum());
+			}
+		}
+		return false;
+	}
+
+	private boolean doAirPathfindingNext = false;
+	private boolean isPathfindingDoneReported = false;
+
+	// the air version of updateDistances(). it's a lot cheaper, since void doesn't matter. the only things that block flying units
+	// are the edge of the map and enemy tower/hq range.
+	// (towers that die later stay blocked. that only costs us a slightly longer path.)
+	private void updateAirDistances(MapLocation curLoc) throws GameActionException {
+		MapLocation hqLoc = getOurHqLocation();
+		int curDist = BroadcastInterface.readAirDistance(rc, curLoc.x, curLoc.y, hqLoc);
+		// same rule as updateDistances(): only write down mirrored terrain once the symmetry is settled
+		boolean isSymmetryKnown = Integer.bitCount(BroadcastInterface.getConfigurationBitmask(rc)) == 1;
+		boolean hasUnknownTiles = false;
+		for (Direction d : Util.actualDirections) {
+			MapLocation nextLoc = curLoc.add(d);
+			int tile = BroadcastInterface.readTile(rc, nextLoc.x, nextLoc.y, hqLoc);
+			int airDist = BroadcastInterface.getAirDistance(tile);
+			if (airDist != 0 && airDist <= curDist + 1) {
+				continue;
+			}
+			if (BroadcastInterface.getTerrain(tile) == BroadcastInterface.TERRAIN_UNKNOWN) {
+				// we only need to know whether it's on the map
+				TerrainTile tileType = rc.senseTerrainTile(nextLoc);
+				boolean isGuess = false;
+				if (tileType == TerrainTile.UNKNOWN) {
+					tileType = rc.senseTerrainTile(getSymmetricLocation(nextLoc));
+					isGuess = !isSymmetryKnown;
+				}
+				if (tileType == TerrainTile.UNKNOWN || (isGuess && tileType == TerrainTile.OFF_MAP)) {
+					// a wrong guess about the edge of the map would cut the field off for good, so wait until we know
+					hasUnknownTiles = true;
+					continue;
+				} else if (tileType == TerrainTile.OFF_MAP) {
+					continue;
+				}
+				if (!isGuess) {
+					tile = BroadcastInterface.withTerrain(tile, toTerrainValue(tileType));
+				}
+			}
+			if (inEnemyHqOrTowerRange(nextLoc)) {
+				continue;
+			}
+			BroadcastInterface.writeTile(rc, nextLoc.x, nextLoc.y, BroadcastInterface.withAirDistance(tile, curDist + 1), hqLoc);
+			BroadcastInterface.enqueueAirPathfindingQueue(rc, nextLoc.x, nextLoc.y);
+
+			if (Clock.getBytecodeNum() > maxBytecodesToUse()) {
+				hasUnknownTiles = true;
+				break;
+			}
+		}
+		if (hasUnknownTiles) {
+			BroadcastInterface.enqueueAirPathfindingQueue(rc, curLoc.x, curLoc.y);
 		}
 	}
 
 	private void updateDistances(MapLocation curLoc) throws GameActionException {
 		// find the smallest non-zero distance (zero indicates unknown distance)
 		// int startBytecodes = Clock.getBytecodeNum();
+		MapLocation hqLoc = getOurHqLocation();
 		int curDist = getDistanceFromOurHq(curLoc);
+		// terrain guessed from the mirror image is only worth writing down if we're sure about the symmetry. otherwise one wrong
+		// guess would stick forever, since known terrain never gets overwritten. (same rule as recordSensedTerrain())
+		boolean isSymmetryKnown = Integer.bitCount(BroadcastInterface.getConfigurationBitmask(rc)) == 1;
 		// 287
 		boolean hasUnknownTiles = false;
 		for (Direction d : Util.actualDirections) {
 			MapLocation nextLoc = curLoc.add(d);
-			int dist = getDistanceFromOurHq(nextLoc);
-			TerrainTile tileType = rc.senseTerrainTile(nextLoc);
-			// even if the tile is "unknown", we can still infer the terrain based on map symmetry
-			if (tileType == TerrainTile.UNKNOWN) {
-				tileType = rc.senseTerrainTile(getSymmetricLocation(nextLoc));
+			// one read gets us both the distance and (usually) the terrain
+			int tile = BroadcastInterface.readTile(rc, nextLoc.x, nextLoc.y, hqLoc);
+			int terrain = BroadcastInterface.getTerrain(tile);
+			boolean isTerrainNews = false;
+			if (terrain == BroadcastInterface.TERRAIN_UNKNOWN) {
+				// nobody has written it down, so ask the game
+				TerrainTile tileType = rc.senseTerrainTile(nextLoc);
+				boolean isGuess = false;
+				// even if the tile is "unknown", we can still infer the terrain based on map symmetry
+				if (tileType == TerrainTile.UNKNOWN) {
+					tileType = rc.senseTerrainTile(getSymmetricLocation(nextLoc));
+					isGuess = !isSymmetryKnown;
+				}
+				if (tileType == TerrainTile.OFF_MAP) {
+					// off the map is as good as a wall. a guessed edge might be wrong though, so look again once we know.
+					if (isGuess) {
+						hasUnknownTiles = true;
+					}
+					continue;
+				}
+				terrain = toTerrainValue(tileType);
+				if (!isGuess) {
+					isTerrainNews = terrain != BroadcastInterface.TERRAIN_UNKNOWN;
+					tile = BroadcastInterface.withTerrain(tile, terrain);
+				}
+				// a guess still steers this step of the BFS, it just doesn't go in the shared terrain bits. come back to this tile
+				// later, when someone has actually seen it or the symmetry is settled.
+				if (isGuess) {
+					hasUnknownTiles = true;
+				}
 			}
 
-			if (tileType == TerrainTile.NORMAL) {
+			if (terrain == BroadcastInterface.TERRAIN_NORMAL) {
+				int dist = tile & BroadcastInterface.DISTANCE_MASK;
 				if (dist == 0 || dist > curDist + 1) {
-					BroadcastInterface.setDistance(rc, nextLoc.x, nextLoc.y, curDist + 1, getOurHqLocation());
+					BroadcastInterface.writeTile(rc, nextLoc.x, nextLoc.y, BroadcastInterface.withDistance(tile, curDist + 1), hqLoc);
 					BroadcastInterface.enqueuePathfindingQueue(rc, nextLoc.x, nextLoc.y);
+				} else if (isTerrainNews) {
+					BroadcastInterface.writeTile(rc, nextLoc.x, nextLoc.y, tile, hqLoc);
 				}
-			} else if (tileType == TerrainTile.UNKNOWN) {
+			} else if (terrain == BroadcastInterface.TERRAIN_UNKNOWN) {
 				hasUnknownTiles = true;
+			} else if (isTerrainNews) {
+				BroadcastInterface.writeTile(rc, nextLoc.x, nextLoc.y, tile, hqLoc);
 			}
 
 			if (Clock.getBytecodeNum() > maxBytecodesToUse()) {
@@ -195,6 +615,128 @@ public abstract class BaseRobotHandler {
 		}
 	}
 
+	// off-map tiles count as unknown here, since they don't fit in the tile indexing. callers that care (like the BFS) check for
+	// OFF_MAP themselves first.
+	private static int toTerrainValue(TerrainTile tileType) {
+		if (tileType == TerrainTile.NORMAL) {
+			return BroadcastInterface.TERRAIN_NORMAL;
+		} else if (tileType == TerrainTile.VOID) {
+			return BroadcastInterface.TERRAIN_VOID;
+		}
+		return BroadcastInterface.TERRAIN_UNKNOWN;
+	}
+
+	// writes the terrain we can see into the shared terrain map (see BroadcastInterface.readTile()), and its mirror image too, if
+	// we're sure about the map symmetry.
+	// on our first turn (or after a long jump) that's everything in sensor range. after a normal move, it's only the tiles on the
+	// leading edge of our sensor range, which are the only ones that could be new.
+	// if we run out of bytecodes, we pick up where we left off next turn, unless we've moved, in which case the new edge wins.
+	// (the game remembers everything we've seen, so dropping the rest just means BFS has to sense those tiles itself.)
+	protected void recordSensedTerrain() throws GameActionException {
+		MapLocation curLoc = rc.getLocation();
+		if (!curLoc.equals(terrainCenter)) {
+			if (terrainCenter != null && curLoc.isAdjacentTo(terrainCenter)) {
+				int dirIndex = terrainCenter.directionTo(curLoc).ordinal();
+				if (edgeOffsetsX[dirIndex] == null) {
+					computeEdgeOffsets(dirIndex);
+				}
+				terrainOffsetsX = edgeOffsetsX[dirIndex];
+				terrainOffsetsY = edgeOffsetsY[dirIndex];
+			} else {
+				if (windowOffsetsX == null) {
+					computeWindowOffsets();
+				}
+				terrainOffsetsX = windowOffsetsX;
+				terrainOffsetsY = windowOffsetsY;
+			}
+			terrainCenter = curLoc;
+			terrainIndex = 0;
+		}
+		if (terrainOffsetsX == null || terrainIndex >= terrainOffsetsX.length) {
+			return;
+		}
+
+		MapLocation hqLoc = getOurHqLocation();
+		boolean shouldMirror = Integer.bitCount(BroadcastInterface.getConfigurationBitmask(rc)) == 1;
+		int[] offsetsX = terrainOffsetsX;
+		int[] offsetsY = terrainOffsetsY;
+		int i = terrainIndex;
+		for (; i < offsetsX.length; i++) {
+			if (Clock.getBytecodeNum() > maxBytecodesToUse()) {
+				break;
+			}
+			MapLocation loc = new MapLocation(curLoc.x + offsetsX[i], curLoc.y + offsetsY[i]);
+			int terrain = toTerrainValue(rc.senseTerrainTile(loc));
+			if (terrain == BroadcastInterface.TERRAIN_UNKNOWN) {
+				continue;
+			}
+			// if it's already written down, someone else probably got the mirror too
+			if (BroadcastInterface.recordTerrain(rc, loc.x, loc.y, terrain, hqLoc) && shouldMirror) {
+				MapLocation mirrored = getSymmetricLocation(loc);
+				BroadcastInterface.recordTerrain(rc, mirrored.x, mirrored.y, terrain, hqLoc);
+			}
+		}
+		terrainIndex = i;
+	}
+
+	private void computeWindowOffsets() {
+		int radiusSq = rc.getType().sensorRadiusSquared;
+		int radius = (int) Math.sqrt(radiusSq);
+		int count = 0;
+		int[] xs = new int[(2 * radius + 1) * (2 * radius + 1)];
+		int[] ys = new int[xs.length];
+		for (int dx = -radius; dx <= radius; dx++) {
+			for (int dy = -radius; dy <= radius; dy++) {
+				if (dx * dx + dy * dy <= radiusSq) {
+					xs[count] = dx;
+					ys[count] = dy;
+					count++;
+				}
+			}
+		}
+		windowOffsetsX = new int[count];
+		windowOffsetsY = new int[count];
+		System.arraycopy(xs, 0, windowOffsetsX, 0, count);
+		System.arraycopy(ys, 0, windowOffsetsY, 0, count);
+	}
+
+	// the offsets (from the new location) that were out of sensor range before we moved in this direction
+	private void computeEdgeOffsets(int dirIndex) {
+		if (windowOffsetsX == null) {
+			computeWindowOffsets();
+		}
+		int radiusSq = rc.getType().sensorRadiusSquared;
+		Direction d = Util.actualDirections[dirIndex];
+		int dirX = d.dx;
+		int dirY = d.dy;
+		int count = 0;
+		int[] xs = new int[windowOffsetsX.length];
+		int[] ys = new int[windowOffsetsX.length];
+		for (int i = 0; i < windowOffsetsX.length; i++) {
+			int oldX = windowOffsetsX[i] + dirX;
+			int oldY = windowOffsetsY[i] + dirY;
+			if (oldX * oldX + oldY * oldY > radiusSq) {
+				xs[count] = windowOffsetsX[i];
+				ys[count] = windowOffsetsY[i];
+				count++;
+			}
+		}
+		edgeOffsetsX[dirIndex] = new int[count];
+		edgeOffsetsY[dirIndex] = new int[count];
+		System.arraycopy(xs, 0, edgeOffsetsX[dirIndex], 0, count);
+		System.arraycopy(ys, 0, edgeOffsetsY[dirIndex], 0, count);
+	}
+
+	private MapLocation terrainCenter = null;
+	private int[] terrainOffsetsX = null;
+	private int[] terrainOffsetsY = null;
+	private int terrainIndex = 0;
+	private int[] windowOffsetsX = null;
+	private int[] windowOffsetsY = null;
+	// indexed like Util.actualDirections
+	private final int[][] edgeOffsetsX = new int[8][];
+	private final int[][] edgeOffsetsY = new int[8][];
+
 	public void onException(GameActionException ex) {
 		// TODO: only do this in debug mode. we don't want to crash and burn in an actual contest.
 		ex.printStackTrace();
@@ -260,6 +802,8 @@ public abstract class BaseRobotHandler {
 				transferAmount = (rc.getSupplyLevel() - lowestSupply) / 2;
 			}
 
+			// outside the try, since that catches everything
+			checkTurn();
 			try {
 				rc.transferSupplies((int) transferAmount, suppliesToThisLocation);
 				return true;
@@ -283,7 +827,7 @@ public abstract class BaseRobotHandler {
 	}
 
 	// do nothing
-	public class Idle implements Action {
+	public class Idle extends Action {
 		@Override
 		public boolean run() throws GameActionException {
 			return true; // intentionally idling indicates that we want to avoid doing anything else
@@ -291,7 +835,7 @@ public abstract class BaseRobotHandler {
 	}
 
 	// almost every unit can attack, but be sure to double check before calling this. production buildings generally cannot.
-	public class Attack implements Action {
+	public class Attack extends Action {
 
 		@Override
 		public boolean run() throws GameActionException {
@@ -309,6 +853,7 @@ public abstract class BaseRobotHandler {
 					}
 				}
 				if (rc.isWeaponReady() && rc.canAttackLocation(enemyLoc)) {
+					checkTurn();
 					rc.attackLocation(enemyLoc);
 					return true;
 				}
@@ -354,7 +899,7 @@ public abstract class BaseRobotHandler {
 	// move this unit to an unexplored square
 	// this is implemented by simple moving further away from the HQ--however, this means we can get stuck.
 	// to counteract this, we move randomly for a number of turns, but that's obvious sub-optimal
-	public class ScoutOutward implements Action {
+	public class ScoutOutward extends Action {
 		private boolean avoidEnemyTowers;
 		private boolean avoidEnemyUnits;
 
@@ -373,6 +918,7 @@ public abstract class BaseRobotHandler {
 					Util.resetRandomDirectionOrdering(gen);
 					for (Direction adjDir : Util.getRandomDirectionOrdering(gen)) {
 						if (rc.canMove(adjDir)) {
+							checkTurn();
 							rc.move(adjDir);
 							turnsToRandomize--;
 							return true;
@@ -393,7 +939,7 @@ public abstract class BaseRobotHandler {
 							if (!avoidEnemyTowers || inEnemyHqOrTowerRange(adjLoc)) {
 								if (!avoidEnemyUnits || inEnemyRange(adjLoc, nearbyEnemies)) {
 									int adjDist = getDistanceFromOurHq(adjLoc);
-									if (adjDist > maxDist) {
+									if (adjDist > maxDist && !isReservedByAlly(adjLoc)) {
 										maxDist = adjDist;
 										nextDir = adjDir;
 									}
@@ -402,6 +948,7 @@ public abstract class BaseRobotHandler {
 						}
 					}
 					if (nextDir != null) {
+						checkTurn();
 						rc.move(nextDir);
 						return true;
 					} else {
@@ -414,7 +961,7 @@ public abstract class BaseRobotHandler {
 		}
 	}
 
-	public class MoveTo implements Action {
+	public class MoveTo extends Action {
 		private boolean avoidTowers;
 		private boolean avoidEnemiesAndTowers;
 		private MapLocation target;
@@ -431,11 +978,17 @@ public abstract class BaseRobotHandler {
 		private int lastRoundInBugMode = -2;
 		private MapLocation lastWall;
 		private MapLocation bugModeStartLocation;
-		private MapLocation[] lastNBugModeLocations;
-		private int bugModeLocationsToStore = 10;
-		private int bugModeLocationIterator = 0;
 		private boolean isGoingLeft;
 
+		// every location we've been to during this run of bug mode, for cycle detection. it's an open-addressed hash set of packed
+		// locations, and a slot only counts if it was written in the current generation, so starting over is just a ++.
+		// it's big enough that one run of bug mode never has to forget anything (see markVisited()).
+		private static final int VISITED_CAPACITY = 256; // must be a power of 2
+		private final int[] visitedKeys = new int[VISITED_CAPACITY];
+		private final int[] visitedGenerations = new int[VISITED_CAPACITY];
+		private int visitedGeneration = 0;
+		private int visitedCount = 0;
+
 		@Override
 		public boolean run() throws GameActionException {
 
@@ -452,11 +1005,64 @@ public abstract class BaseRobotHandler {
 			if (rc.isCoreReady()) {
 				// bug navigation
 				return bugNavigate();
+			} else if (!inBugMode && rc.getCoreDelay() < 2) {
+				// we'll move next turn, so claim the tile we're going to move into
+				Direction nextDir = greedyDirection(getTraversableDirections(avoidTowers, avoidEnemiesAndTowers));
+				if (nextDir != null) {
+					reserveStep(nextDir);
+				}
 			}
 
 			return false;
 		}
 
+		// the traversable direction that gets us closest to the target, if any of them get us closer at all
+		private Direction greedyDirection(Direction[] traversableDirections) throws GameActionException {
+			int minDist = target.distanceSquaredTo(rc.getLocation());
+			Direction nextDir = null;
+			for (int i = 0; i < traversableDirections.length && traversableDirections[i] != null; i++) {
+				Direction adjDir = traversableDirections[i];
+				MapLocation adjLoc = rc.getLocation().add(adjDir);
+				int adjDist = target.distanceSquaredTo(adjLoc);
+				if (adjDist < minDist && !isReservedByAlly(adjLoc)) {
+					minDist = adjDist;
+					nextDir = adjDir;
+				}
+			}
+			return nextDir;
+		}
+
+		private void clearVisited() {
+			visitedGeneration++;
+			visitedCount = 0;
+		}
+
+		// returns false if we've already been here during this run of bug mode, or if the run is so long that we're probably
+		// going in circles anyway
+		private boolean markVisited(MapLocation loc) {
+			if (visitedCount >= VISITED_CAPACITY * 3 / 4) {
+				// no wall takes this many steps to follow. rather than forget where we've been (and miss the cycle), give up on
+				// this run like we would for a cycle we'd caught.
+				return false;
+			}
+			int key = (loc.x << 16) | (0xFFFF & loc.y);
+			int slot = (loc.x * 31 + loc.y) & (VISITED_CAPACITY - 1);
+			while (visitedGenerations[slot] == visitedGeneration) {
+				if (visitedKeys[slot] == key) {
+					return false;
+				}
+				slot = (slot + 1) & (VISITED_CAPACITY - 1);
+			}
+			visitedKeys[slot] = key;
+			visitedGenerations[slot] = visitedGeneration;
+			visitedCount++;
+			return true;
+		}
+
+		// how long we'll wait for an ally to get out of our way before bugging around it
+		private static final int ALLY_PATIENCE = 2;
+		private int turnsWaitedForAlly = 0;
+
 		public boolean bugNavigate() throws GameActionException {
 			// how does bug navigation work? first, you need a metric, like euclidian distance to hq.
 			// first, you follow the metric. however, if you get stuck, you enter bug mode. You also pick a direction ordering to
@@ -488,21 +1094,19 @@ public abstract class BaseRobotHandler {
 
 			if (!inBugMode) {
 				int curDist = target.distanceSquaredTo(rc.getLocation());
-				int minDist = curDist;
-				Direction nextDir = null;
-				for (int i = 0; i < traversableDirections.length && traversableDirections[i] != null; i++) {
-					Direction adjDir = traversableDirections[i];
-					MapLocation adjLoc = rc.getLocation().add(adjDir);
-					int adjDist = target.distanceSquaredTo(adjLoc);
-					if (adjDist < minDist) {
-						minDist = adjDist;
-						nextDir = adjDir;
-					}
-				}
+				Direction nextDir = greedyDirection(traversableDirections);
 				if (nextDir != null) {
+					turnsWaitedForAlly = 0;
+					checkTurn();
 					rc.move(nextDir);
 					return true;
+				} else if (turnsWaitedForAlly < ALLY_PATIENCE
+						&& isBlockedOnlyByAlly(rc.getLocation().add(rc.getLocation().directionTo(target)))) {
+					// an ally is in the way. it'll probably move, so don't go into bug mode over it.
+					turnsWaitedForAlly++;
+					return false;
 				} else {
+					turnsWaitedForAlly = 0;
 					inBugMode = true;
 					distSqToHqAtBugModeStart = curDist;
 					isGoingLeft = gen.nextBoolean();
@@ -510,8 +1114,7 @@ public abstract class BaseRobotHandler {
 					lastWall = rc.getLocation().add(hqDir);
 					bugModeStartLocation = rc.getLocation();
 
-					bugModeLocationIterator = 0;
-					lastNBugModeLocations = new MapLocation[bugModeLocationsToStore];
+					clearVisited();
 				}
 
 			}
@@ -519,69 +1122,53 @@ public abstract class BaseRobotHandler {
 				// BUGMODE
 
 				// more cycle detection
-				for (int i = 0; i < lastNBugModeLocations.length; i++) {
-					if (lastNBugModeLocations[i] == null) {
-						break;
-					}
-					if (rc.getLocation().equals(lastNBugModeLocations[i])) {
-						inBugMode = false;
-						return false;
-					}
+				if (!markVisited(rc.getLocation())) {
+					inBugMode = false;
+					return false;
+				}
+
+				int traversableMask = 0;
+				for (int i = 0; i < traversableDirections.length && traversableDirections[i] != null; i++) {
+					traversableMask |= 1 << traversableDirections[i].ordinal();
 				}
-				lastNBugModeLocations[bugModeLocationIterator++] = rc.getLocation();
-				bugModeLocationIterator %= bugModeLocationsToStore;
 
 				// if we're near a tower or enemy, it sometimes makes sense to just skirt back and forth around them,
 				// rather than backtracking along other obstacles
 				if (avoidEnemiesAndTowers || avoidTowers) {
-					Direction[] nearEnemyTraversableDirections;
-					boolean nearEnemy = false;
 					boolean[] isDirNearEnemy = getIsDirNearTower(avoidEnemiesAndTowers);
-					for (boolean b : isDirNearEnemy) {
-						if (b) {
-							nearEnemy = true;
-							break;
+					int nearEnemyMask = 0;
+					for (int i = 0; i < 8; i++) {
+						if (isDirNearEnemy[i]) {
+							nearEnemyMask |= 1 << i;
 						}
 					}
-					if (nearEnemy) {
-						nearEnemyTraversableDirections = new Direction[8];
-						int size = 0;
-						for (int i = 0; i < traversableDirections.length && traversableDirections[i] != null; i++) {
-							Direction adjDir = traversableDirections[i];
-							if ((isDirNearEnemy[adjDir.rotateLeft().ordinal()] || isDirNearEnemy[adjDir.rotateRight().ordinal()])
-									&& !isDirNearEnemy[adjDir.ordinal()]) {
-								nearEnemyTraversableDirections[size++] = adjDir;
-							}
-						}
-						traversableDirections = nearEnemyTraversableDirections;
+					if (nearEnemyMask != 0) {
+						// keep the directions next to a dangerous direction, but not the dangerous ones themselves.
+						// (directions are ordered clockwise, so rotating the mask by one bit rotates every direction by 45 degrees.)
+						int besideNearEnemyMask = ((nearEnemyMask << 1) | (nearEnemyMask >>> 7) | (nearEnemyMask >>> 1) | (nearEnemyMask << 7))
+								& 0xFF;
+						traversableMask &= besideNearEnemyMask & ~nearEnemyMask;
 					}
 				}
 
 				lastRoundInBugMode = Clock.getRoundNum();
 
-				Direction facingDir = rc.getLocation().directionTo(lastWall);
+				int wallDirIndex = rc.getLocation().directionTo(lastWall).ordinal();
+				if (wallDirIndex >= 8) {
+					// we're standing on the last wall (NONE/OMNI). that shouldn't happen, but the target is a decent guess.
+					wallDirIndex = rc.getLocation().directionTo(target).ordinal() & 7;
+				}
+				Direction[] ordering = isGoingLeft ? leftRotations[wallDirIndex] : rightRotations[wallDirIndex];
 				// find a traversable tile
 				for (int i = 0; i < 8; i++) {
-					if (isGoingLeft) {
-						facingDir = facingDir.rotateLeft();
-					} else {
-						facingDir = facingDir.rotateRight();
-					}
-					// TODO: initialize traversableDirections to be in an order conducive to bug pathfinding, so we can just iterate
-					// through it
-					boolean isTraversable = false;
-					for (Direction d : traversableDirections) {
-						if (facingDir == d) {
-							isTraversable = true;
-							break;
-						}
-					}
-					if (isTraversable) {
+					Direction facingDir = ordering[i];
+					if ((traversableMask & (1 << facingDir.ordinal())) != 0) {
 						if (isGoingLeft) {
 							lastWall = rc.getLocation().add(facingDir.rotateRight());
 						} else {
 							lastWall = rc.getLocation().add(facingDir.rotateLeft());
 						}
+						checkTurn();
 						rc.move(facingDir);
 						return true;
 					}
@@ -593,7 +1180,20 @@ public abstract class BaseRobotHandler {
 
 	}
 
-	public class MoveTowardEnemyHq implements Action {
+	// leftRotations[d][i] is the direction with ordinal d, rotated left i+1 times. likewise for rightRotations.
+	// this is the order bug mode checks directions in, starting from the wall.
+	private static final Direction[][] leftRotations = new Direction[8][8];
+	private static final Direction[][] rightRotations = new Direction[8][8];
+	static {
+		for (int d = 0; d < 8; d++) {
+			for (int i = 0; i < 8; i++) {
+				leftRotations[d][i] = Util.actualDirections[(d + 7 * (i + 1)) % 8];
+				rightRotations[d][i] = Util.actualDirections[(d + i + 1) % 8];
+			}
+		}
+	}
+
+	public class MoveTowardEnemyHq extends Action {
 		private boolean avoidTowers;
 		private boolean avoidEnemiesAndTowers;
 
@@ -612,10 +1212,15 @@ public abstract class BaseRobotHandler {
 			// if not though, we need a backup plan
 			// scouting outward is a shitty backup plan. Bug Navigation is where the money is.
 
+			// if the BFS hasn't reached us yet, plan a path through what we can see, and bug navigate until the plan is ready.
+
 			if (rc.isCoreReady()) {
 				if (bfsToHq()) {
 					return true;
 				}
+				if (getDistanceFromEnemyHq(rc.getLocation()) == 0 && moveWithLocalPlanner(getEnemyHqLocation(), avoidTowers)) {
+					return true;
+				}
 			}
 
 			return bugNavigateToEnemyHq.run();
@@ -643,6 +1248,7 @@ public abstract class BaseRobotHandler {
 				}
 			}
 			if (nextDir != null) {
+				checkTurn();
 				rc.move(nextDir);
 				return true;
 			}
@@ -699,6 +1305,43 @@ public abstract class BaseRobotHandler {
 	private int cacheTimeIsDirNearTower;
 	private boolean[] cachedIsDirNearTower;
 
+	// movement reservations (see BroadcastInterface.reserveTile()). if we know where we're going next turn, claim it now, so allies
+	// don't step into it first and throw us into bug mode.
+	protected void reserveStep(Direction d) throws GameActionException {
+		MapLocation next = rc.getLocation().add(d);
+		int untilRound = Clock.getRoundNum() + 1;
+		if (next.equals(myReservation) && myReservationExpiry >= untilRound) {
+			return;
+		}
+		BroadcastInterface.reserveTile(rc, next.x, next.y, getOurHqLocation(), untilRound);
+		myReservation = next;
+		myReservationExpiry = untilRound;
+	}
+
+	protected boolean isReservedByAlly(MapLocation loc) throws GameActionException {
+		// our own claim doesn't count against us, but only while it lasts. once it runs out, someone else may have taken the tile.
+		if (loc.equals(myReservation) && myReservationExpiry >= Clock.getRoundNum()) {
+			return false;
+		}
+		return BroadcastInterface.isTileReserved(rc, loc.x, loc.y, getOurHqLocation());
+	}
+
+	// true if the tile is free terrain-wise, but a unit of ours is standing on it (or about to be). those get out of the way, unlike
+	// walls and buildings, so it's usually better to wait a turn than to start bugging around them.
+	protected boolean isBlockedOnlyByAlly(MapLocation loc) throws GameActionException {
+		if (!rc.senseTerrainTile(loc).isTraversable()) {
+			return false;
+		}
+		RobotInfo blocker = rc.senseRobotAtLocation(loc);
+		if (blocker == null) {
+			return isReservedByAlly(loc);
+		}
+		return blocker.team == rc.getTeam() && !blocker.type.isBuilding;
+	}
+
+	private MapLocation myReservation = null;
+	private int myReservationExpiry = -1;
+
 	// a round-based cache of some things relevant to pathing
 	// this is a null-terminated list of traversable directions (sort of like a cstring)
 	public Direction[] getTraversableDirections(boolean avoidTowers, boolean avoidEnemiesAndTowers) {
@@ -755,7 +1398,7 @@ public abstract class BaseRobotHandler {
 	private int cacheTimeTraversableDirectionsEAndT = -1;
 
 	// opposite of scouting outward. try to move back toward hq.
-	public class Retreat implements Action {
+	public class Retreat extends Action {
 		private boolean retreatOrthogonally;
 
 		public Retreat() {
@@ -773,7 +1416,8 @@ public abstract class BaseRobotHandler {
 				// this is sub-optimal, but saves us bytecodes
 				int curDist = getDistanceFromOurHq(rc.getLocation());
 				if (curDist == 0) {
-					return false;
+					// the BFS hasn't gotten here yet, so find our own way
+					return moveWithLocalPlanner(getOurHqLocation(), true);
 				}
 				int minDist = curDist;
 				Direction nextDir = null;
@@ -781,7 +1425,7 @@ public abstract class BaseRobotHandler {
 					MapLocation adjLoc = rc.getLocation().add(adjDir);
 					if (rc.canMove(adjDir) && !inEnemyHqOrTowerRange(adjLoc)) {
 						int adjDist = getDistanceFromOurHq(adjLoc);
-						if (adjDist != 0 && adjDist < minDist) {
+						if (adjDist != 0 && adjDist < minDist && !isReservedByAlly(adjLoc)) {
 							// for some units, it's smarter to expand out, rather than taking the shortest path
 							if (retreatOrthogonally || adjDist >= curDist - 1) {
 								minDist = adjDist;
@@ -791,6 +1435,44 @@ public abstract class BaseRobotHandler {
 					}
 				}
 				if (nextDir != null) {
+					checkTurn();
+					rc.move(nextDir);
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	// like Retreat, but for flying units, which can take the shortcut over void
+	public class FlyHome extends Action {
+		private final Action bugNavigateHome = new MoveTo(getOurHqLocation(), true, true);
+
+		@Override
+		public boolean run() throws GameActionException {
+			if (rc.isCoreReady()) {
+				MapLocation curLoc = rc.getLocation();
+				int curDist = getAirDistanceFromOurHq(curLoc);
+				if (curDist == 0) {
+					// the air field hasn't gotten here yet
+					return bugNavigateHome.run();
+				}
+				RobotInfo[] nearbyEnemies = getNearbyEnemies();
+				int minDist = curDist;
+				Direction nextDir = null;
+				for (Direction adjDir : Util.actualDirections) {
+					if (!rc.canMove(adjDir)) {
+						continue;
+					}
+					MapLocation adjLoc = curLoc.add(adjDir);
+					int adjDist = getAirDistanceFromOurHq(adjLoc);
+					if (adjDist != 0 && adjDist < minDist && !inRobotRange(adjLoc, nearbyEnemies)) {
+						minDist = adjDist;
+						nextDir = adjDir;
+					}
+				}
+				if (nextDir != null) {
+					checkTurn();
 					rc.move(nextDir);
 					return true;
 				}
@@ -801,7 +1483,7 @@ public abstract class BaseRobotHandler {
 
 	// this "defends" by randomly traveling between our towers
 	// TODO: also defend our miners and production buildings, or gather near where enemies are
-	public class Defend implements Action {
+	public class Defend extends Action {
 
 		private boolean isTravelingToTower = false;
 		private MapLocation target;
@@ -810,6 +1492,17 @@ public abstract class BaseRobotHandler {
 		private MoveTo[] possibleTargetActions;
 		private boolean isRespondingToDistressSignal = false;
 
+		// if there's no distress signal, but someone recently saw fighters close to one of our towers, go there instead of
+		// wandering around
+		private static final int NEAR_TOWER_DIST_SQ = 64;
+		private final SightingFinder threats = new SightingFinder(FIGHTER_SIGHTINGS, 10, 5);
+		private boolean isChasingSighting = false;
+
+		// how many defenders each enemy near a building is worth
+		private static final int DEFENDERS_PER_ENEMY = 2;
+		private int distressSlot = -1;
+		private MapLocation distressLocation = null;
+
 		public Defend() {
 			resetTargetActions();
 
@@ -843,28 +1536,36 @@ public abstract class BaseRobotHandler {
 
 		@Override
 		public boolean run() throws GameActionException {
-			MapLocation towerInPeril = BroadcastInterface.getTowerInPeril(rc);
-
-			// if we've reached our location, OR if we're not going anywhere important and a tower is startled
-			if ((!isRespondingToDistressSignal && towerInPeril != null) || !isTravelingToTower) {
-				// first check if any towers are requesting help
-				// if not, just pick randomly from the current towers
-				if (towerInPeril != null) {
-					target = towerInPeril;
-					curAction = new MoveTo(towerInPeril, true, false);
+			MapLocation distress = checkDistressBoard();
+
+			if (distress != null) {
+				if (!isRespondingToDistressSignal || !distress.equals(target)) {
+					target = distress;
+					curAction = new MoveTo(distress, true, false);
 					isRespondingToDistressSignal = true;
+					isChasingSighting = false;
+				}
+				isTravelingToTower = true;
+			} else if (isRespondingToDistressSignal || !isTravelingToTower) {
+				// nobody needs us, so either go after a recent sighting or pick randomly from the current towers
+				// first, check if we've lost a tower.
+				int numTowers = getOurTowerLocations().length;
+				if (possibleTargetActions.length != numTowers + 1) {
+					resetTargetActions();
+				}
+				MapLocation threat = findThreatNearTower();
+				if (threat != null) {
+					target = threat;
+					curAction = new MoveTo(threat, true, false);
+					isChasingSighting = true;
 				} else {
-					// first, check if we've lost a tower.
-					int numTowers = getOurTowerLocations().length;
-					if (possibleTargetActions.length != numTowers + 1) {
-						resetTargetActions();
-					}
 					// pick a target
 					int index = gen.nextInt(numTowers + 1);
 					target = possibleTargets[index];
 					curAction = possibleTargetActions[index];
-					isRespondingToDistressSignal = false;
+					isChasingSighting = false;
 				}
+				isRespondingToDistressSignal = false;
 				isTravelingToTower = true;
 			}
 
@@ -872,29 +1573,103 @@ public abstract class BaseRobotHandler {
 
 			if (rc.getLocation().distanceSquaredTo(target) <= 8) {
 				isTravelingToTower = false;
+				if (isChasingSighting && getNearbyEnemies().length == 0) {
+					// they've moved on
+					threats.forgetOldSightings();
+				}
+			}
+
+			return result;
+		}
+
+		// returns the building we should be defending, if any. we stay with the one we picked for as long as it keeps calling,
+		// and otherwise take the closest one that's still short on defenders, so a big army splits itself up between threats
+		// instead of everyone running back and forth between whichever tower called last.
+		private MapLocation checkDistressBoard() throws GameActionException {
+			if (distressSlot >= 0) {
+				MapLocation loc = BroadcastInterface.readDistressLocation(rc, distressSlot);
+				if (loc != null && loc.equals(distressLocation)) {
+					BroadcastInterface.reportDefending(rc, distressSlot);
+					return loc;
+				}
+				// it's safe now (or dead)
+				distressSlot = -1;
+				distressLocation = null;
+			}
+
+			MapLocation here = rc.getLocation();
+			int hereDist = getDistanceFromOurHq(here);
+			int bestTime = Integer.MAX_VALUE;
+			for (int slot = 0; slot < BroadcastInterface.DISTRESS_SLOTS; slot++) {
+				MapLocation loc = BroadcastInterface.readDistressLocation(rc, slot);
+				if (loc == null) {
+					continue;
+				}
+				int wanted = DEFENDERS_PER_ENEMY * BroadcastInterface.readDistressEnemyCount(rc, slot);
+				if (BroadcastInterface.readDistressDefenders(rc, slot) >= wanted) {
+					continue;
+				}
+				int time = estimateTravelTime(here, hereDist, loc);
+				if (time < bestTime) {
+					bestTime = time;
+					distressSlot = slot;
+					distressLocation = loc;
+				}
 			}
+			if (distressSlot >= 0) {
+				BroadcastInterface.reportDefending(rc, distressSlot);
+			}
+			return distressLocation;
+		}
 
+		// a lower bound on the number of moves to get somewhere. the straight line can't be beaten, and since ground distances
+		// from our hq obey the triangle inequality, neither can the difference between the two distances.
+		private int estimateTravelTime(MapLocation from, int fromDist, MapLocation to) throws GameActionException {
+			int result = Math.max(Math.abs(to.x - from.x), Math.abs(to.y - from.y));
+			int toDist = getDistanceFromOurHq(to);
+			// 0 means the bfs hasn't been there yet
+			if (fromDist != 0 && toDist != 0) {
+				result = Math.max(result, Math.abs(toDist - fromDist));
+			}
 			return result;
 		}
+
+		private MapLocation findThreatNearTower() throws GameActionException {
+			MapLocation threat = threats.find(getOurHqLocation());
+			if (threat == null) {
+				return null;
+			}
+			for (MapLocation tower : possibleTargets) {
+				if (tower.distanceSquaredTo(threat) <= NEAR_TOWER_DIST_SQ) {
+					return threat;
+				}
+			}
+			return null;
+		}
 	}
 
-	public class AttackInAWave implements Action {
+	public class AttackInAWave extends Action {
 		private MapLocation target = null;
+		private int siegeCursor = -1;
+		private int targetDist;
 		private Action curAction;
 		private boolean avoidingTowers = false;
 		private boolean goingToHq = false;
 
+		// while we're rallying, if someone recently saw enemy fighters close by, go deal with them instead of walking past
+		private static final int INTERCEPT_DIST_SQ = 100;
+		private final SightingFinder nearbyFighters = new SightingFinder(FIGHTER_SIGHTINGS, 5, 3);
+		private MapLocation interceptTarget = null;
+		private Action interceptAction;
+
 		@Override
 		public boolean run() throws GameActionException {
-			if(target != null && rc.canSenseLocation(target)){
-				RobotInfo curOccupant = rc.senseRobotAtLocation(target);
-				if(curOccupant == null || curOccupant.type != RobotType.TOWER){
-					// WE GOT IT!
-					target = null;
-				}
-			}
-			if (target == null) {
-				target = BroadcastInterface.getNextTarget(rc);
+			// the hq moves the siege cursor along whenever a tower dies, so we only have to look up a target when it changes
+			int cursor = BroadcastInterface.getSiegeCursor(rc);
+			if (cursor != siegeCursor) {
+				siegeCursor = cursor;
+				target = BroadcastInterface.getSiegeTarget(rc, cursor);
+				targetDist = getDistanceFromOurHq(target);
 
 				if (target.equals(getEnemyHqLocation())) {
 					curAction = new MoveTowardEnemyHq(true, false);
@@ -917,11 +1692,49 @@ public abstract class BaseRobotHandler {
 			}
 
 			if (nearTarget()) {
-				BroadcastInterface.incrementAlliesInPosition(rc);
+				BroadcastInterface.reportInPosition(rc, rc.getType());
+			} else {
+				if (estimateArrival() <= Parameters.RALLY_ETA_WINDOW) {
+					BroadcastInterface.reportArriving(rc, combatValue(rc.getType()));
+				}
+				if (avoidTowers && intercept()) {
+					return interceptAction.run();
+				}
 			}
 			return curAction.run();
 		}
 
+		// a lower bound on how many rounds until we're in position, from the bfs field like Defend does it
+		private int estimateArrival() throws GameActionException {
+			MapLocation here = rc.getLocation();
+			int moves = Math.max(Math.abs(target.x - here.x), Math.abs(target.y - here.y));
+			int hereDist = getDistanceFromOurHq(here);
+			if (targetDist != 0 && hereDist != 0) {
+				moves = Math.max(moves, Math.abs(targetDist - hereDist));
+			}
+			// we only have to get close, not all the way there
+			moves -= goingToHq ? 9 : 8;
+			return (int) (moves * rc.getType().movementDelay);
+		}
+
+		private boolean intercept() throws GameActionException {
+			MapLocation here = rc.getLocation();
+			MapLocation sighting = nearbyFighters.find(here);
+			if (sighting == null || here.distanceSquaredTo(sighting) > INTERCEPT_DIST_SQ || inEnemyHqOrTowerRange(sighting)) {
+				return false;
+			}
+			if (here.distanceSquaredTo(sighting) <= 8 && getNearbyEnemies().length == 0) {
+				// they're gone
+				nearbyFighters.forgetOldSightings();
+				return false;
+			}
+			if (!sighting.equals(interceptTarget)) {
+				interceptTarget = sighting;
+				interceptAction = new MoveTo(sighting, true, false);
+			}
+			return true;
+		}
+
 		private boolean nearTarget() {
 			int distSqThresh;
 			if (goingToHq) {
@@ -936,12 +1749,14 @@ public abstract class BaseRobotHandler {
 	// only beavers and miners can mine
 	// this also includes some exploratory behavior, which is triggered if there's better mineral patches nearby
 
-	// TODO: I just made these numbers up.
-	// can we do some testing to figure out optimial behavior?
-	public static final double MIN_ORE_PER_TURN_THRESHOLD = 0.2;
-	public static final double MIN_ADJ_ORE_PER_TURN_TO_REPORT_ABUNDANT_THRESHOLD = 0.5;
+	// these started out as made-up numbers. the parameter tuner can search for better ones.
+	public static final double MIN_ORE_PER_TURN_THRESHOLD = Parameters.MIN_ORE_PER_TURN_THRESHOLD;
+	public static final double MIN_ADJ_ORE_PER_TURN_TO_REPORT_ABUNDANT_THRESHOLD = Parameters.MIN_ADJ_ORE_PER_TURN_TO_REPORT_ABUNDANT_THRESHOLD;
 
-	public class Mine implements Action {
+	// how long a miner's claim on its ore cell lasts without being renewed. miners renew it every time they mine.
+	public static final int ORE_CLAIM_DURATION = 10;
+
+	public class Mine extends Action {
 		private boolean isBeaver;
 
 		public Mine(boolean isBeaver) {
@@ -959,6 +1774,7 @@ public abstract class BaseRobotHandler {
 				// this code checks two turns into the future to do the comparison, but it might be worth playing around with that.
 				// TODO
 				double curOre = rc.senseOre(rc.getLocation());
+				double totalOre = curOre;
 				double firstTurnOre = miningRate(curOre, isBeaver);
 				double secondTurnOre = miningRate(curOre - firstTurnOre, isBeaver);
 				double maxOre = firstTurnOre + secondTurnOre;
@@ -968,16 +1784,20 @@ public abstract class BaseRobotHandler {
 				if (maxOre > MIN_ADJ_ORE_PER_TURN_TO_REPORT_ABUNDANT_THRESHOLD) {
 					numAbundant++;
 				}
+				MapLocation hq = getOurHqLocation();
+				int hereCell = BroadcastInterface.oreCellIndex(rc.getLocation().x, rc.getLocation().y, hq);
 				// use a random direction ordering, so we don't deplete all the ore in one place
 				for (Direction d : Util.getRandomDirectionOrdering(gen)) {
 					MapLocation adjLoc = rc.getLocation().add(d);
-					double adjOre = miningRate(rc.senseOre(adjLoc), isBeaver);
+					double rawAdjOre = rc.senseOre(adjLoc);
+					totalOre += rawAdjOre;
+					double adjOre = miningRate(rawAdjOre, isBeaver);
 					if (adjOre > MIN_ADJ_ORE_PER_TURN_TO_REPORT_ABUNDANT_THRESHOLD) {
 						numAbundant++;
 					}
 					if (rc.canMove(d)) {
 						if (!inEnemyHqOrTowerRange(adjLoc)) {
-							if (adjOre > maxOre) {
+							if (adjOre > maxOre && !isClaimedByAnotherMiner(adjLoc, hereCell, hq)) {
 								moveDir = d;
 								maxOre = adjOre;
 							}
@@ -987,12 +1807,20 @@ public abstract class BaseRobotHandler {
 				if (numAbundant >= 2) {
 					BroadcastInterface.incrementAbundantOre(rc);
 				}
+				// we sensed all that ore anyway, so share it
+				BroadcastInterface.reportOre(rc, rc.getLocation(), (int) (totalOre / 9), getOurHqLocation());
 				if (maxOre > MIN_ORE_PER_TURN_THRESHOLD) {
 					if (moveDir == null) {
 						// rc.canMine() is only false if this is called by a unit other than a beaver or miner. SO DON'T DO THAT!
 						// actually checking costs us 10 bytecodes! (from rc.canMine())
+						checkTurn();
 						rc.mine();
+						if (!isBeaver) {
+							// if someone else already has this cell, we keep mining, but we don't take it from them
+							BroadcastInterface.claimOreCell(rc, hereCell, rc.getID(), Clock.getRoundNum() + ORE_CLAIM_DURATION);
+						}
 					} else {
+						checkTurn();
 						rc.move(moveDir);
 					}
 					return true;
@@ -1001,16 +1829,103 @@ public abstract class BaseRobotHandler {
 			return false;
 		}
 
-		private double miningRate(double orePresent, boolean isBeaver) {
+		// moving around inside our own cell is always fine. only miners respect claims, since beavers barely mine anyway.
+		private boolean isClaimedByAnotherMiner(MapLocation loc, int hereCell, MapLocation hq) throws GameActionException {
 			if (isBeaver) {
-				return Math.min(orePresent, Math.max(
-						Math.min(GameConstants.BEAVER_MINE_MAX, orePresent / (double) GameConstants.BEAVER_MINE_RATE),
-						GameConstants.MINIMUM_MINE_AMOUNT));
-			} else {
-				return Math.min(orePresent, Math.max(
-						Math.min(GameConstants.MINER_MINE_MAX, orePresent / (double) GameConstants.MINER_MINE_RATE),
-						GameConstants.MINIMUM_MINE_AMOUNT));
+				return false;
+			}
+			int cell = BroadcastInterface.oreCellIndex(loc.x, loc.y, hq);
+			return cell != hereCell && BroadcastInterface.isOreCellClaimedByOther(rc, cell, rc.getID());
+		}
+	}
+
+	public static double miningRate(double orePresent, boolean isBeaver) {
+		if (isBeaver) {
+			return Math.min(orePresent, Math.max(
+					Math.min(GameConstants.BEAVER_MINE_MAX, orePresent / (double) GameConstants.BEAVER_MINE_RATE),
+					GameConstants.MINIMUM_MINE_AMOUNT));
+		} else {
+			return Math.min(orePresent, Math.max(
+					Math.min(GameConstants.MINER_MINE_MAX, orePresent / (double) GameConstants.MINER_MINE_RATE),
+					GameConstants.MINIMUM_MINE_AMOUNT));
+		}
+	}
+
+	// when there's nothing worth mining here, head for the best ore we know about (see BroadcastInterface.reportOre()). if
+	// nobody has reported anything worthwhile, just wander outward like before.
+	public class ScoutForOre extends Action {
+		private final boolean isBeaver;
+		private final Action explore;
+
+		private MapLocation curTarget = null;
+		private Action curAction;
+
+		// how many cells away to look when the global pointer isn't useful
+		private static final int SEARCH_RADIUS_IN_CELLS = 2;
+
+		public ScoutForOre(boolean isBeaver) {
+			this.isBeaver = isBeaver;
+			this.explore = new ScoutOutward(true, true);
+		}
+
+		@Override
+		public boolean run() throws GameActionException {
+			if (!rc.isCoreReady()) {
+				return false;
+			}
+			MapLocation target = findOreTarget();
+			if (target == null) {
+				curTarget = null;
+				return explore.run();
+			}
+			if (!target.equals(curTarget)) {
+				curTarget = target;
+				curAction = new MoveTo(target, true, true);
 			}
+			return curAction.run();
+		}
+
+		private MapLocation findOreTarget() throws GameActionException {
+			MapLocation hq = getOurHqLocation();
+			MapLocation here = rc.getLocation();
+			int hereCell = BroadcastInterface.oreCellIndex(here.x, here.y, hq);
+
+			// usually one lookup is enough
+			int richest = BroadcastInterface.getRichestOreCell(rc);
+			if (richest >= 0 && richest != hereCell && isWorthMining(BroadcastInterface.readOre(rc, richest))
+					&& !BroadcastInterface.isOreCellClaimedByOther(rc, richest, rc.getID())) {
+				MapLocation center = BroadcastInterface.oreCellCenter(richest, hq);
+				if (!inEnemyHqOrTowerRange(center)) {
+					return center;
+				}
+			}
+
+			// otherwise the pointer is stale (probably pointing at us), unsafe, or someone else is already mining there, so look
+			// around for the best known cell nearby that nobody has claimed
+			MapLocation best = null;
+			int bestOre = -1;
+			int step = BroadcastInterface.ORE_CELL_SIZE;
+			for (int dx = -SEARCH_RADIUS_IN_CELLS; dx <= SEARCH_RADIUS_IN_CELLS; dx++) {
+				for (int dy = -SEARCH_RADIUS_IN_CELLS; dy <= SEARCH_RADIUS_IN_CELLS; dy++) {
+					if (dx == 0 && dy == 0) {
+						continue;
+					}
+					int cell = BroadcastInterface.oreCellIndex(here.x + dx * step, here.y + dy * step, hq);
+					int ore = BroadcastInterface.readOre(rc, cell);
+					if (ore > bestOre && isWorthMining(ore)) {
+						MapLocation center = BroadcastInterface.oreCellCenter(cell, hq);
+						if (!inEnemyHqOrTowerRange(center) && !BroadcastInterface.isOreCellClaimedByOther(rc, cell, rc.getID())) {
+							bestOre = ore;
+							best = center;
+						}
+					}
+				}
+			}
+			return best;
+		}
+
+		private boolean isWorthMining(int averageOre) {
+			return averageOre >= 0 && miningRate(averageOre, isBeaver) > MIN_ORE_PER_TURN_THRESHOLD;
 		}
 	}
 
@@ -1080,6 +1995,11 @@ public abstract class BaseRobotHandler {
 		return BroadcastInterface.readDistance(rc, target.x, target.y, getOurHqLocation());
 	}
 
+	// flying distance, see updateAirDistances()
+	public int getAirDistanceFromOurHq(MapLocation target) throws GameActionException {
+		return BroadcastInterface.readAirDistance(rc, target.x, target.y, getOurHqLocation());
+	}
+
 	public int getDistanceFromEnemyHq(MapLocation target) throws GameActionException {
 		MapLocation transformed = getSymmetricLocation(target);
 
@@ -1087,7 +2007,10 @@ public abstract class BaseRobotHandler {
 	}
 
 	private MapLocation getSymmetricLocation(MapLocation original) throws GameActionException {
-		MapConfiguration configuration = getMapConfiguration();
+		return getSymmetricLocation(original, getMapConfiguration());
+	}
+
+	private MapLocation getSymmetricLocation(MapLocation original, MapConfiguration configuration) throws GameActionException {
 		float[] midpoint = getCachedMidpoint();
 		switch (configuration) {
 		case ROTATION:
@@ -1106,11 +2029,13 @@ public abstract class BaseRobotHandler {
 		}
 	}
 
-	// caches the map configuration, since it (probably) won't change.
+	// the configuration can be narrowed down during the game (see disambiguateSymmetry()), so only cache it for a round
 	private MapConfiguration getMapConfiguration() throws GameActionException {
-		if (cachedConfiguration != null) {
+		int roundNum = Clock.getRoundNum();
+		if (cacheTimeConfiguration == roundNum) {
 			return cachedConfiguration;
 		}
+		cacheTimeConfiguration = roundNum;
 		// we can only pick one map configuration, so these are given in trump order
 		int bitmask = BroadcastInterface.getConfigurationBitmask(rc);
 		if (Util.decodeRotation(bitmask)) {
@@ -1128,6 +2053,57 @@ public abstract class BaseRobotHandler {
 		return cachedConfiguration;
 	}
 
+	// the hq's tower checks can't tell some configurations apart (see HQHandler.checkIfRotatedOrReflected()). but terrain is
+	// exactly symmetric, so as the map gets explored, we check each surviving candidate against pairs of tiles we know about. one
+	// mismatch rules a candidate out. once a single candidate is left, getDistanceFromEnemyHq() reads the right mirrored tiles.
+	// (ore would work too, except that mining makes it asymmetric, so we stick to terrain.)
+	protected void disambiguateSymmetry() throws GameActionException {
+		int bitmask = BroadcastInterface.getConfigurationBitmask(rc);
+		if (Integer.bitCount(bitmask) <= 1) {
+			return;
+		}
+
+		// sample a ring of tiles we can see. the radius changes every round, so over time we cover the whole sensor range.
+		MapLocation curLoc = rc.getLocation();
+		int ringRadius = 1 + Clock.getRoundNum() % symmetrySampleRadius();
+		int newBitmask = bitmask;
+		for (Direction d : Util.actualDirections) {
+			MapLocation sample = curLoc.add(d, ringRadius);
+			TerrainTile tile = rc.senseTerrainTile(sample);
+			if (tile == TerrainTile.UNKNOWN) {
+				continue;
+			}
+			for (int i = 0; i < allConfigurations.length; i++) {
+				int bit = 1 << i;
+				if ((newBitmask & bit) == 0) {
+					continue;
+				}
+				TerrainTile mirrored = rc.senseTerrainTile(getSymmetricLocation(sample, allConfigurations[i]));
+				if (mirrored != TerrainTile.UNKNOWN && mirrored != tile) {
+					newBitmask &= ~bit;
+				}
+			}
+			if (Integer.bitCount(newBitmask) <= 1 || Clock.getBytecodeNum() > maxBytecodesToUse()) {
+				break;
+			}
+		}
+
+		// the true configuration can never mismatch, so if we ruled everything out, something else is wrong. don't make it worse.
+		if (newBitmask != bitmask && newBitmask != 0) {
+			BroadcastInterface.narrowMapConfiguration(rc, newBitmask);
+		}
+	}
+
+	private int symmetrySampleRadius() {
+		if (cachedSymmetrySampleRadius == 0) {
+			cachedSymmetrySampleRadius = Math.max(1, (int) Math.sqrt(rc.getType().sensorRadiusSquared));
+		}
+		return cachedSymmetrySampleRadius;
+	}
+
+	private static final MapConfiguration[] allConfigurations = MapConfiguration.values();
+	private int cachedSymmetrySampleRadius = 0;
+
 	private float[] getCachedMidpoint() throws GameActionException {
 		if (cachedMidpoint != null) {
 			return cachedMidpoint;
@@ -1137,6 +2113,7 @@ public abstract class BaseRobotHandler {
 	}
 
 	private MapConfiguration cachedConfiguration = null;
+	private int cacheTimeConfiguration = -1;
 	private float[] cachedMidpoint = null;
 
 	// some cachable things
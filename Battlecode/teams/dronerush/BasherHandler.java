@@ -31,7 +31,7 @@ public class BasherHandler extends BaseRobotHandler {
 	private final Action advance = new AttackInAWave();
 	private final Action defend = new Defend();
 
-	public class BasherAttack implements Action {
+	public class BasherAttack extends Action {
 		private final int BASHER_ENEMY_SEARCH_RANGE_SQ = 9;
 
 		@Override
@@ -59,6 +59,7 @@ public class BasherHandler extends BaseRobotHandler {
 					}
 				}
 				if (bestDir != null) {
+					checkTurn();
 					rc.move(bestDir);
 					return true;
 				}
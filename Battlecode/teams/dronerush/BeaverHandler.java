@@ -15,6 +15,22 @@ public class BeaverHandler extends BaseRobotHandler {
 		super(rc);
 	}
 
+	// buildings don't run (or count themselves) until they're finished, so the beaver counts them in the meantime. otherwise
+	// everyone would think we still need one, and build another.
+	private RobotType typeUnderConstruction = null;
+
+	@Override
+	protected void reportToCensus() throws GameActionException {
+		super.reportToCensus();
+		if (typeUnderConstruction != null) {
+			if (rc.isBuildingSomething()) {
+				BroadcastInterface.reportAlive(rc, typeUnderConstruction);
+			} else {
+				typeUnderConstruction = null;
+			}
+		}
+	}
+
 	@Override
 	public List<Action> chooseActions() throws GameActionException {
 		// beavers are basically the worst unit, except in that they can build buildings.
@@ -84,7 +100,7 @@ public class BeaverHandler extends BaseRobotHandler {
 	private final Action scout = new ScoutOutward(true, true);
 	private final Action attack = new Attack();
 
-	private class BuildBuilding implements Action {
+	private class BuildBuilding extends Action {
 		private RobotType type;
 
 		BuildBuilding(RobotType type) {
@@ -96,7 +112,10 @@ public class BeaverHandler extends BaseRobotHandler {
 			if (rc.getTeamOre() >= type.oreCost) {
 				Direction buildDir = findBuildDirectionTowardOpponent();
 				if (buildDir != null) {
+					checkTurn();
 					rc.build(buildDir, type);
+					typeUnderConstruction = type;
+					curStrategy.onBuildingStarted(type);
 					return true;
 				}
 			}
@@ -20,10 +20,30 @@ public class BroadcastInterface {
 	// based off the text file. todo.
 	// so just keep track of who's using what when you use this file.
 	// addresses claimed so far:
-	// 0-20: number of each robot
-	// 21-57620: distance to opponent HQ of each map tile--maybe we should also have distance from our HQ?
+	// 0-20: (free, used to be the number of each of our robots)
+	// 21-29060: distance from our HQ, known terrain, and air distance from our HQ of each map tile (see readTile())
+	// 29061: air pathfinding queue head address
+	// 29062: air pathfinding queue tail address
+	// 29063: air pathfinding queue current size
+	// 29064-32063: air pathfinding queue
+	// 32064-33087: movement reservations, a hash table of tiles robots are about to move into
+	// 33088-33108: census of our robots of each type, reported on even rounds
+	// 33109-33129: census of our robots of each type, reported on odd rounds
+	// 33130-33225: enemy sighting log, 3 channels per enemy (see recordSighting())
+	// 33226-35626: ore grid, average ore of each 5x5 cell of the map as last sampled by a miner (see reportOre())
+	// 35627: the richest ore cell reported so far
+	// 35628-38028: which miner is working each ore cell (see claimOreCell())
+	// 38029: the ore profile of the map around our hq, an index into EconomyTable
+	// 38030: how far through the strategy's opening build order the beavers are (see BuildOrders)
+	// 38031-38062: distress board, buildings that can see enemies and how many defenders are on the way (see reportDistress())
+	// 38063: siege cursor, (plan number << 8) | index of the siege plan entry we're going after now
+	// 38064-38070: siege plan, the enemy towers in the order we take them out, then their hq (see HQHandler.PlanSiege)
+	// 38071-38092: rally point, combat value about to arrive and number of each type in position, reported on even rounds
+	// 38093-38114: rally point, same as above, reported on odd rounds
+	// 38115: number of turns any of our robots ran over into the next round (see BaseRobotHandler.checkTurn())
+	// 38116-38121: job board, background work any robot with spare bytecodes can pick up (see postJob())
 	// 58625: attack/retreat signal
-	// 58626: bitmask containing which configuration the map is in (reflection, rotation, etc)
+	// 58626: bitmask containing which configuration the map is in (reflection, rotation, etc), narrowed down as robots explore
 	// 58627: x midpoint of the map
 	// 58628: y midpoint of the map
 	// 58629: pathfinding queue head address
@@ -39,18 +59,17 @@ public class BroadcastInterface {
 	// 64638: build more supply depots signal
 	// 64639: "pull the boys" and all attack signal
 	// 64640-64660: number of each enemy robot
-	// 64661: a boolean, whether there is a tower in peril
-	// 64662: coordinates of a tower in peril, if it exists
-	// 64663: number of enemies near tower in peril
+	// 64661: the round both pathfinding queues first ran dry (see reportPathfindingDone())
+	// 64662-64663: (free, used to be a single tower in peril)
 	// 64664: a number corrosponding to the current strategy
 	// 64665-65264: a list of launchers and the enemies they are targeting
-	// 65265: a map location of the next tower/hq to go to
+	// 65265: (free, used to be the next tower/hq to go to, which is the siege plan now)
 	// 65266: a flag of whether to move into tower range
-	// 65267: a count of the number of allies in tower range
+	// 65267: (free, used to be a count of the number of allies in tower range, which is the rally point now)
 
 	// is there a better/more efficient way to do this? we could use an enummap, but i think that's less efficient.
 	// alternatively, I think type.ordinal() might be useful?
-	private static int getRobotIndex(RobotType type) {
+	static int getRobotIndex(RobotType type) {
 		switch (type) {
 		case AEROSPACELAB:
 			return 0;
@@ -98,21 +117,45 @@ public class BroadcastInterface {
 		return -1;
 	}
 
+	// one more than the largest index getRobotIndex() hands out, for sizing arrays and channel blocks indexed by it
+	static final int NUM_ROBOT_INDICES = 21;
+
 	private static final int enemyTeamCountOffset = 64640;
 
-	public static int getRobotCount(RobotController rc, RobotType type, boolean isOurTeam) throws GameActionException {
-		int index = getRobotIndex(type);
-		if (!isOurTeam) {
-			index += enemyTeamCountOffset;
+	// our own robots count themselves: every robot adds itself to this round's census bank when its turn starts (see
+	// reportAlive()), and everyone reads last round's bank, which is complete by then. it's the same odd/even trick as the abundant
+	// ore counter, except each count is stamped with its round, so nobody has to zero anything. robots that die just stop
+	// reporting, so they drop out after a round.
+	// each entry is (round << 12) | count.
+	private static final int censusEvenRoundsAddr = 33088;
+	private static final int censusOddRoundsAddr = 33109;
+
+	public static void reportAlive(RobotController rc, RobotType type) throws GameActionException {
+		int roundNum = Clock.getRoundNum();
+		int channel = ((roundNum & 0x1) == 0 ? censusEvenRoundsAddr : censusOddRoundsAddr) + getRobotIndex(type);
+		int entry = rc.readBroadcast(channel);
+		if ((entry >>> 12) == roundNum) {
+			rc.broadcast(channel, entry + 1);
+		} else {
+			rc.broadcast(channel, (roundNum << 12) | 1);
 		}
-		return rc.readBroadcast(index);
 	}
 
-	public static void setRobotCount(RobotController rc, RobotType type, int count, boolean isOurTeam) throws GameActionException {
+	public static int getRobotCount(RobotController rc, RobotType type, boolean isOurTeam) throws GameActionException {
 		int index = getRobotIndex(type);
 		if (!isOurTeam) {
-			index += enemyTeamCountOffset;
+			return rc.readBroadcast(index + enemyTeamCountOffset);
 		}
+		int lastRound = Clock.getRoundNum() - 1;
+		int entry = rc.readBroadcast(((lastRound & 0x1) == 0 ? censusEvenRoundsAddr : censusOddRoundsAddr) + index);
+		if ((entry >>> 12) != lastRound) {
+			return 0;
+		}
+		return entry & 0xFFF;
+	}
+
+	public static void setEnemyRobotCount(RobotController rc, RobotType type, int count) throws GameActionException {
+		int index = getRobotIndex(type) + enemyTeamCountOffset;
 		if (rc.readBroadcast(index) != count)
 			rc.broadcast(index, count);
 	}
@@ -124,15 +167,73 @@ public class BroadcastInterface {
 	// to solve this, i'm converting all coordinates to be relative to the HQ. this means they can range from [-120, 120] in x and
 	// [-30,30] in y. so be careful!
 
+	// each map tile gets one word, which holds two things:
+	// bits 0-13: distance from our HQ (0 means we haven't gotten there yet). the longest possible path is well under 2^14.
+	// bits 14-15: terrain, as one of the TERRAIN_* values below. it's filled in by everyone from what they sense, and mirrored
+	// through the map symmetry, so BFS can check terrain with the same read it uses for distance.
+	// bits 16-29: distance from our HQ for flying units (0 means unknown). void is fine, enemy tower and HQ range isn't.
+	public static final int DISTANCE_MASK = 0x3FFF;
+	private static final int TERRAIN_SHIFT = 14;
+	private static final int TERRAIN_MASK = 0x3 << TERRAIN_SHIFT;
+	private static final int AIR_DISTANCE_SHIFT = 16;
+	private static final int AIR_DISTANCE_MASK = DISTANCE_MASK << AIR_DISTANCE_SHIFT;
+	public static final int TERRAIN_UNKNOWN = 0;
+	public static final int TERRAIN_NORMAL = 1;
+	public static final int TERRAIN_VOID = 2;
+
+	public static int readTile(RobotController rc, int x, int y, MapLocation hqLoc) throws GameActionException {
+		return rc.readBroadcast(20 + mapIndex(x - hqLoc.x, y - hqLoc.y));
+	}
+
+	// for when you've already read the tile, and don't want to pay for reading it again
+	public static void writeTile(RobotController rc, int x, int y, int tile, MapLocation hqLoc) throws GameActionException {
+		rc.broadcast(20 + mapIndex(x - hqLoc.x, y - hqLoc.y), tile);
+	}
+
+	public static int getTerrain(int tile) {
+		return (tile & TERRAIN_MASK) >>> TERRAIN_SHIFT;
+	}
+
+	public static int withTerrain(int tile, int terrain) {
+		return (tile & ~TERRAIN_MASK) | (terrain << TERRAIN_SHIFT);
+	}
+
+	public static int withDistance(int tile, int d) {
+		return (tile & ~DISTANCE_MASK) | d;
+	}
+
+	public static int getAirDistance(int tile) {
+		return (tile & AIR_DISTANCE_MASK) >>> AIR_DISTANCE_SHIFT;
+	}
+
+	public static int withAirDistance(int tile, int d) {
+		return (tile & ~AIR_DISTANCE_MASK) | (d << AIR_DISTANCE_SHIFT);
+	}
+
+	public static int readAirDistance(RobotController rc, int x, int y, MapLocation hqLoc) throws GameActionException {
+		return getAirDistance(readTile(rc, x, y, hqLoc));
+	}
+
 	public static void setDistance(RobotController rc, int x, int y, int d, MapLocation hqLoc) throws GameActionException {
 		int channel = 20 + mapIndex(x - hqLoc.x, y - hqLoc.y);
-		rc.broadcast(channel, d);
+		rc.broadcast(channel, withDistance(rc.readBroadcast(channel), d));
 	}
 
 	public static int readDistance(RobotController rc, int x, int y, MapLocation hqLoc) throws GameActionException {
 		int channel = 20 + mapIndex(x - hqLoc.x, y - hqLoc.y);
 		// System.out.println("reading from channel " + channel + "(x=" + x + ", y=" + y + ")");
-		return rc.readBroadcast(channel);
+		return rc.readBroadcast(channel) & DISTANCE_MASK;
+	}
+
+	// returns true if this was news
+	public static boolean recordTerrain(RobotController rc, int x, int y, int terrain, MapLocation hqLoc) throws GameActionException {
+		int channel = 20 + mapIndex(x - hqLoc.x, y - hqLoc.y);
+		int tile = rc.readBroadcast(channel);
+		if ((tile & TERRAIN_MASK) != 0) {
+			return false;
+		}
+		rc.broadcast(channel, withTerrain(tile, terrain));
+		return true;
 	}
 
 	public static int mapIndex(int x, int y) {
@@ -167,6 +268,17 @@ public class BroadcastInterface {
 		rc.broadcast(yMidpointChannel, Float.floatToIntBits(midpoint[1]));
 	}
 
+	// robots rule out configurations as they see more terrain. the midpoint doesn't change.
+	// a long turn can run into the next round, so someone else may have ruled out more since we read the channel. only ever
+	// clear bits, and never clear the last one.
+	public static void narrowMapConfiguration(RobotController rc, int configurationBitmask) throws GameActionException {
+		int current = rc.readBroadcast(configurationBitmaskChannel);
+		int narrowed = current & configurationBitmask;
+		if (narrowed != current && narrowed != 0) {
+			rc.broadcast(configurationBitmaskChannel, narrowed);
+		}
+	}
+
 	public static int getConfigurationBitmask(RobotController rc) throws GameActionException {
 		return rc.readBroadcast(configurationBitmaskChannel);
 	}
@@ -247,6 +359,251 @@ public class BroadcastInterface {
 		return false;
 	}
 
+	// same as the pathfinding queue, but for the air distance field
+
+	private static final int airPfqHeadAddr = 29061;
+	private static final int airPfqTailAddr = 29062;
+	private static final int airPfqSizeAddr = 29063;
+	private static final int airPfqBaseAddr = 29064;
+	private static final int AIR_PFQ_CAPACITY = 3000;
+
+	public static int[] dequeueAirPathfindingQueue(RobotController rc) throws GameActionException {
+		int size = rc.readBroadcast(airPfqSizeAddr);
+		if (size > 0) {
+			int head = rc.readBroadcast(airPfqHeadAddr);
+			rc.broadcast(airPfqHeadAddr, (head + 1) % AIR_PFQ_CAPACITY);
+			rc.broadcast(airPfqSizeAddr, size - 1);
+
+			int combined = rc.readBroadcast(airPfqBaseAddr + head);
+			int x = (combined >> 16);
+			int y = (short) (0xFFFF & combined);
+			return new int[] { x, y };
+		}
+		return null;
+	}
+
+	public static boolean enqueueAirPathfindingQueue(RobotController rc, int x, int y) throws GameActionException {
+		int size = rc.readBroadcast(airPfqSizeAddr);
+		if (size < AIR_PFQ_CAPACITY) {
+			int tail = rc.readBroadcast(airPfqTailAddr);
+			rc.broadcast(airPfqTailAddr, (tail + 1) % AIR_PFQ_CAPACITY);
+			rc.broadcast(airPfqSizeAddr, size + 1);
+
+			int combined = (x << 16) | (0xFFFF & y);
+			rc.broadcast(airPfqBaseAddr + tail, combined);
+			return true;
+		}
+		return false;
+	}
+
+	// movement reservations
+	// a robot that's about to move claims the tile it wants, so that allies who move before it this round (or early next round)
+	// don't take it. each entry is (last round it's good for << 16) | (tile key), so old reservations expire on their own and
+	// nobody has to clear the table.
+	// tile keys are coordinates relative to the HQ, shifted to be positive, 8 bits each.
+
+	private static final int reservationBaseAddr = 32064;
+	private static final int RESERVATION_SLOTS = 1024;
+	private static final int RESERVATION_PROBES = 4;
+
+	private static int reservationKey(int x, int y, MapLocation hqLoc) {
+		return ((x - hqLoc.x + GameConstants.MAP_MAX_WIDTH) << 8) | (y - hqLoc.y + GameConstants.MAP_MAX_HEIGHT);
+	}
+
+	public static void reserveTile(RobotController rc, int x, int y, MapLocation hqLoc, int untilRound) throws GameActionException {
+		int key = reservationKey(x, y, hqLoc);
+		int roundNum = Clock.getRoundNum();
+		int slot = (key * 31) & (RESERVATION_SLOTS - 1);
+		for (int i = 0; i < RESERVATION_PROBES; i++) {
+			int channel = reservationBaseAddr + ((slot + i) & (RESERVATION_SLOTS - 1));
+			int entry = rc.readBroadcast(channel);
+			if ((entry >>> 16) < roundNum || (entry & 0xFFFF) == key) {
+				rc.broadcast(channel, (untilRound << 16) | key);
+				return;
+			}
+		}
+		// the neighborhood is full. that means a lot of robots are moving around here, and one missing reservation won't hurt.
+	}
+
+	public static boolean isTileReserved(RobotController rc, int x, int y, MapLocation hqLoc) throws GameActionException {
+		int key = reservationKey(x, y, hqLoc);
+		int roundNum = Clock.getRoundNum();
+		int slot = (key * 31) & (RESERVATION_SLOTS - 1);
+		for (int i = 0; i < RESERVATION_PROBES; i++) {
+			int entry = rc.readBroadcast(reservationBaseAddr + ((slot + i) & (RESERVATION_SLOTS - 1)));
+			if ((entry & 0xFFFF) == key && (entry >>> 16) >= roundNum) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// enemy sighting log
+	// whenever a robot sees an enemy, it writes down where and when, so other robots can go find enemies without sensing
+	// anything. it's direct-mapped by robot id, so each enemy has at most one entry, and seeing it again just moves the entry.
+	// if two enemies collide, the newer sighting wins, which is what we'd want anyway.
+	// each entry is three channels: the enemy's id, its packed location, and (round seen << 8) | type index.
+	private static final int sightingsBaseAddr = 33130;
+	private static final int SIGHTING_SLOTS = 32;
+
+	// returns true if we wrote anything, so callers can limit how much they spend on this
+	public static boolean recordSighting(RobotController rc, RobotInfo enemy, int roundNum) throws GameActionException {
+		// towers and the hq never move, and everyone already knows where they are. missiles are gone before anyone could
+		// get there.
+		if (enemy.type == RobotType.TOWER || enemy.type == RobotType.HQ || enemy.type == RobotType.MISSILE) {
+			return false;
+		}
+		int base = sightingsBaseAddr + 3 * (enemy.ID % SIGHTING_SLOTS);
+		// somebody probably already reported it this round
+		if ((rc.readBroadcast(base + 2) >>> 8) == roundNum && rc.readBroadcast(base) == enemy.ID) {
+			return false;
+		}
+		rc.broadcast(base, enemy.ID);
+		rc.broadcast(base + 1, (enemy.location.x << 16) | (0xFFFF & enemy.location.y));
+		rc.broadcast(base + 2, (roundNum << 8) | getRobotIndex(enemy.type));
+		return true;
+	}
+
+	public static int sightingTypeMask(RobotType... types) {
+		int mask = 0;
+		for (RobotType type : types) {
+			mask |= 1 << getRobotIndex(type);
+		}
+		return mask;
+	}
+
+	// the closest enemy of one of the given types seen since minRound, or null if there aren't any. this reads the whole log
+	// (a few hundred bytecodes), so don't call it every turn.
+	public static MapLocation findNearestSighting(RobotController rc, MapLocation from, int typeMask, int minRound)
+			throws GameActionException {
+		MapLocation best = null;
+		int bestDistSq = Integer.MAX_VALUE;
+		for (int base = sightingsBaseAddr + 3 * SIGHTING_SLOTS - 3; base >= sightingsBaseAddr; base -= 3) {
+			int stamp = rc.readBroadcast(base + 2);
+			// a stamp of 0 is an empty slot
+			if (stamp == 0 || (stamp >>> 8) < minRound || ((1 << (stamp & 0xFF)) & typeMask) == 0) {
+				continue;
+			}
+			int combined = rc.readBroadcast(base + 1);
+			MapLocation loc = new MapLocation(combined >> 16, (short) (0xFFFF & combined));
+			int distSq = from.distanceSquaredTo(loc);
+			if (distSq < bestDistSq) {
+				bestDistSq = distSq;
+				best = loc;
+			}
+		}
+		return best;
+	}
+
+	// ore grid
+	// miners already sense the ore around them every time they mine, so they write it down here. the map is split into 5x5
+	// cells (relative to the hq, like the distance map), and each cell keeps the average ore per tile that was last seen there,
+	// as (round << 16) | (ore + 1), so 0 means nobody has looked. ore only goes down, so an old reading is probably too high.
+	// readings older than ORE_READING_MAX_AGE count as if nobody had looked, and miners refresh the ones they keep seeing.
+	// one more channel points at the richest cell anyone has reported, as (cell << 16) | (ore + 1). it's only a hint: when
+	// miners deplete that cell, they report the lower value, and the pointer goes down with it until someone finds better.
+	private static final int oreGridBaseAddr = 33226;
+	private static final int richestOreCellChannel = 35627;
+	public static final int ORE_CELL_SIZE = 5;
+	private static final int ORE_GRID_WIDTH = (2 * GameConstants.MAP_MAX_WIDTH) / ORE_CELL_SIZE + 1;
+	private static final int ORE_READING_MAX_AGE = 200;
+
+	// returns -1 if the location can't be on the map. (searches around the edge of the grid ask about those.)
+	public static int oreCellIndex(int x, int y, MapLocation hqLoc) {
+		int gridX = x - hqLoc.x + GameConstants.MAP_MAX_WIDTH;
+		int gridY = y - hqLoc.y + GameConstants.MAP_MAX_HEIGHT;
+		// check before dividing, since division rounds toward zero, and small negatives would land in the first cell
+		if (gridX < 0 || gridY < 0) {
+			return -1;
+		}
+		int cellX = gridX / ORE_CELL_SIZE;
+		int cellY = gridY / ORE_CELL_SIZE;
+		if (cellX >= ORE_GRID_WIDTH || cellY >= ORE_GRID_WIDTH) {
+			return -1;
+		}
+		return cellX * ORE_GRID_WIDTH + cellY;
+	}
+
+	public static MapLocation oreCellCenter(int cell, MapLocation hqLoc) {
+		return new MapLocation((cell / ORE_GRID_WIDTH) * ORE_CELL_SIZE + ORE_CELL_SIZE / 2 - GameConstants.MAP_MAX_WIDTH + hqLoc.x,
+				(cell % ORE_GRID_WIDTH) * ORE_CELL_SIZE + ORE_CELL_SIZE / 2 - GameConstants.MAP_MAX_HEIGHT + hqLoc.y);
+	}
+
+	public static void reportOre(RobotController rc, MapLocation loc, int averageOre, MapLocation hqLoc) throws GameActionException {
+		int cell = oreCellIndex(loc.x, loc.y, hqLoc);
+		if (cell < 0) {
+			return;
+		}
+		int roundNum = Clock.getRoundNum();
+		int value = Math.min(averageOre, 0xFFFE) + 1;
+		int channel = oreGridBaseAddr + cell;
+		int old = rc.readBroadcast(channel);
+		// rewrite an unchanged reading once it's halfway to expiring, so cells someone is watching don't age out
+		if ((old & 0xFFFF) != value || roundNum - (old >>> 16) > ORE_READING_MAX_AGE / 2) {
+			rc.broadcast(channel, (roundNum << 16) | value);
+		}
+		int richest = rc.readBroadcast(richestOreCellChannel);
+		if ((richest >>> 16) == cell ? (richest & 0xFFFF) != value : value > (richest & 0xFFFF)) {
+			rc.broadcast(richestOreCellChannel, (cell << 16) | value);
+		}
+	}
+
+	// average ore per tile in the cell, or -1 if nobody has looked lately
+	public static int readOre(RobotController rc, int cell) throws GameActionException {
+		if (cell < 0 || cell >= ORE_GRID_WIDTH * ORE_GRID_WIDTH) {
+			return -1;
+		}
+		int entry = rc.readBroadcast(oreGridBaseAddr + cell);
+		if (Clock.getRoundNum() - (entry >>> 16) > ORE_READING_MAX_AGE) {
+			return -1;
+		}
+		return (entry & 0xFFFF) - 1;
+	}
+
+	public static final int ORE_CELLS = ORE_GRID_WIDTH * ORE_GRID_WIDTH;
+
+	// for the ore survey (see BaseRobotHandler.surveyOre()), which looks at the whole grid instead of just what got reported lately
+	public static void setRichestOreCell(RobotController rc, int cell, int averageOre) throws GameActionException {
+		rc.broadcast(richestOreCellChannel, (cell << 16) | (Math.min(averageOre, 0xFFFE) + 1));
+	}
+
+	// returns -1 if nobody has reported any ore yet
+	public static int getRichestOreCell(RobotController rc) throws GameActionException {
+		int richest = rc.readBroadcast(richestOreCellChannel);
+		if (richest == 0) {
+			return -1;
+		}
+		return richest >>> 16;
+	}
+
+	// ore cell claims
+	// a miner working a cell claims it, so other miners go find their own cell instead of crowding in and racing each other to
+	// strip it. same cells as the ore grid. each entry is (last round the claim is good for << 16) | (low bits of the miner's id),
+	// so a miner that dies or leaves just stops renewing, and the claim expires on its own.
+	private static final int oreClaimsBaseAddr = 35628;
+
+	// returns false if someone else has it
+	public static boolean claimOreCell(RobotController rc, int cell, int robotId, int untilRound) throws GameActionException {
+		if (cell < 0) {
+			return false;
+		}
+		int channel = oreClaimsBaseAddr + cell;
+		int entry = rc.readBroadcast(channel);
+		if ((entry >>> 16) >= Clock.getRoundNum() && (entry & 0xFFFF) != (robotId & 0xFFFF)) {
+			return false;
+		}
+		rc.broadcast(channel, (untilRound << 16) | (robotId & 0xFFFF));
+		return true;
+	}
+
+	public static boolean isOreCellClaimedByOther(RobotController rc, int cell, int robotId) throws GameActionException {
+		if (cell < 0 || cell >= ORE_GRID_WIDTH * ORE_GRID_WIDTH) {
+			return false;
+		}
+		int entry = rc.readBroadcast(oreClaimsBaseAddr + cell);
+		return (entry >>> 16) >= Clock.getRoundNum() && (entry & 0xFFFF) != (robotId & 0xFFFF);
+	}
+
 	private static void printPfq(RobotController rc) throws GameActionException {
 		int head = rc.readBroadcast(pfqHeadAddr);
 		int tail = rc.readBroadcast(pfqTailAddr);
@@ -349,44 +706,197 @@ public class BroadcastInterface {
 		}
 	}
 
-	// 64661: a boolean, whether there is a tower in peril
-	// 64662: coordinates of a tower in peril, if it exists
-	// 64663: number of enemies near tower in peril
-	private static final int isTowerInPerilChannel = 64661;
-	private static final int towerInPerilChannelChannel = 64662;
-	private static final int numEnemiesNearTowerInPerilChannel = 64663;
+	// distress board
+	// any building that can see enemies asks for help here, so several threats can be handled at once instead of everyone
+	// running to whichever tower yelled loudest. each slot is four channels: the building's packed location,
+	// (round << 8) | number of enemies, and then the number of defenders headed there, reported on even and odd rounds like the
+	// census, as (round << 12) | count.
+	// entries are round stamped, so a slot frees itself a round after its building stops seeing enemies.
+	public static final int DISTRESS_SLOTS = 8;
+	private static final int distressBaseAddr = 38031;
 
-	public static void resetTowerInPeril(RobotController rc) throws GameActionException {
-		rc.broadcast(isTowerInPerilChannel, 0);
-		rc.broadcast(numEnemiesNearTowerInPerilChannel, 0);
+	public static void reportDistress(RobotController rc, MapLocation location, int numEnemies) throws GameActionException {
+		int roundNum = Clock.getRoundNum();
+		int combined = (location.x << 16) | (0xFFFF & location.y);
+		int freeSlot = -1;
+		for (int slot = 0; slot < DISTRESS_SLOTS; slot++) {
+			int base = distressBaseAddr + 4 * slot;
+			int stamp = rc.readBroadcast(base + 1);
+			boolean isStale = stamp == 0 || (stamp >>> 8) < roundNum - 1;
+			if (isStale) {
+				if (freeSlot < 0) {
+					freeSlot = slot;
+				}
+			} else if (rc.readBroadcast(base) == combined) {
+				rc.broadcast(base + 1, (roundNum << 8) | Math.min(numEnemies, 0xFF));
+				return;
+			}
+		}
+		if (freeSlot < 0) {
+			// the whole board is on fire. the buildings already on it will have to do.
+			return;
+		}
+		int base = distressBaseAddr + 4 * freeSlot;
+		rc.broadcast(base, combined);
+		rc.broadcast(base + 1, (roundNum << 8) | Math.min(numEnemies, 0xFF));
+	}
+
+	// the building in this slot, or null if it hasn't asked for help lately
+	public static MapLocation readDistressLocation(RobotController rc, int slot) throws GameActionException {
+		int base = distressBaseAddr + 4 * slot;
+		int stamp = rc.readBroadcast(base + 1);
+		if (stamp == 0 || (stamp >>> 8) < Clock.getRoundNum() - 1) {
+			return null;
+		}
+		int combined = rc.readBroadcast(base);
+		return new MapLocation(combined >> 16, (short) (0xFFFF & combined));
 	}
 
-	public static int getNumEnemiesNearTowerInPeril(RobotController rc) throws GameActionException {
-		return rc.readBroadcast(numEnemiesNearTowerInPerilChannel);
+	public static int readDistressEnemyCount(RobotController rc, int slot) throws GameActionException {
+		return rc.readBroadcast(distressBaseAddr + 4 * slot + 1) & 0xFF;
 	}
 
-	public static MapLocation getTowerInPeril(RobotController rc) throws GameActionException {
-		if (!isTowerInPeril(rc)) {
-			return null;
+	// how many defenders are headed to this slot. that's last round's count, unless more have already checked in this round.
+	public static int readDistressDefenders(RobotController rc, int slot) throws GameActionException {
+		int roundNum = Clock.getRoundNum();
+		int base = distressBaseAddr + 4 * slot + 2;
+		int current = rc.readBroadcast(base + (roundNum & 0x1));
+		int last = rc.readBroadcast(base + ((roundNum - 1) & 0x1));
+		int currentCount = (current >>> 12) == roundNum ? current & 0xFFF : 0;
+		int lastCount = (last >>> 12) == roundNum - 1 ? last & 0xFFF : 0;
+		return Math.max(currentCount, lastCount);
+	}
+
+	public static void reportDefending(RobotController rc, int slot) throws GameActionException {
+		int roundNum = Clock.getRoundNum();
+		int channel = distressBaseAddr + 4 * slot + 2 + (roundNum & 0x1);
+		int entry = rc.readBroadcast(channel);
+		if ((entry >>> 12) == roundNum) {
+			rc.broadcast(channel, entry + 1);
+		} else {
+			rc.broadcast(channel, (roundNum << 12) | 1);
 		}
-		int combined = rc.readBroadcast(towerInPerilChannelChannel);
-		int x = (combined >> 16);
-		int y = (short) (0xFFFF & combined);
-		return new MapLocation(x, y);
 	}
 
-	public static void reportTowerInPeril(RobotController rc, int numEnemies, MapLocation location) throws GameActionException {
-		if (!isTowerInPeril(rc)) {
-			rc.broadcast(isTowerInPerilChannel, 1);
+	// stored off by one, so 0 means the hq hasn't looked yet
+	private static final int oreProfileChannel = 38029;
+	// until the hq has looked, assume a middling map
+	private static final int DEFAULT_ORE_PROFILE = 2;
+
+	public static void setOreProfile(RobotController rc, int profile) throws GameActionException {
+		rc.broadcast(oreProfileChannel, profile + 1);
+	}
+
+	public static int getOreProfile(RobotController rc) throws GameActionException {
+		int value = rc.readBroadcast(oreProfileChannel);
+		return value == 0 ? DEFAULT_ORE_PROFILE : value - 1;
+	}
+
+	// the low 16 bits are the cursor. after a rewind, the high bits say where to pick up again once the missing building has
+	// been started (see Strategy.onBuildingStarted()), so the buildings after it that we still have don't get built twice.
+	private static final int buildCursorChannel = 38030;
+
+	public static int getBuildCursor(RobotController rc) throws GameActionException {
+		return rc.readBroadcast(buildCursorChannel) & 0xFFFF;
+	}
+
+	// 0 if we aren't rewound
+	public static int getBuildResumeCursor(RobotController rc) throws GameActionException {
+		return rc.readBroadcast(buildCursorChannel) >>> 16;
+	}
+
+	// also forgets any rewind
+	public static void setBuildCursor(RobotController rc, int cursor) throws GameActionException {
+		rc.broadcast(buildCursorChannel, cursor);
+	}
+
+	public static void rewindBuildCursor(RobotController rc, int cursor) throws GameActionException {
+		int value = rc.readBroadcast(buildCursorChannel);
+		// if we were already rewound, keep the furthest point we've gotten to
+		int resume = Math.max(value >>> 16, value & 0xFFFF);
+		rc.broadcast(buildCursorChannel, (resume << 16) | cursor);
+	}
+
+	// the siege plan only changes when the hq replans, so units just watch the cursor. the plan number in the cursor changes on
+	// each replan, so a unit that cached an old cursor will notice even if the index is the same.
+	public static final int MAX_SIEGE_PLAN_LENGTH = 7;
+	private static final int siegeCursorChannel = 38063;
+	private static final int siegePlanBaseChannel = 38064;
+
+	public static void writeSiegePlan(RobotController rc, MapLocation[] plan, int planNumber) throws GameActionException {
+		for (int i = 0; i < plan.length; i++) {
+			rc.broadcast(siegePlanBaseChannel + i, (plan[i].x << 16) | (0xFFFF & plan[i].y));
 		}
+		setSiegeCursor(rc, planNumber, 0);
+	}
 
-		int combined = (location.x << 16) | (0xFFFF & location.y);
-		rc.broadcast(towerInPerilChannelChannel, combined);
-		rc.broadcast(numEnemiesNearTowerInPerilChannel, numEnemies);
+	public static void setSiegeCursor(RobotController rc, int planNumber, int index) throws GameActionException {
+		rc.broadcast(siegeCursorChannel, (planNumber << 8) | index);
+	}
+
+	public static int getSiegeCursor(RobotController rc) throws GameActionException {
+		return rc.readBroadcast(siegeCursorChannel);
+	}
+
+	public static MapLocation getSiegeTarget(RobotController rc, int cursor) throws GameActionException {
+		int combined = rc.readBroadcast(siegePlanBaseChannel + (cursor & 0xFF));
+		return new MapLocation(combined >> 16, (short) (0xFFFF & combined));
+	}
+
+	// job board
+	// spare bytecodes used to go to the bfs and nothing else, so once that settled down they were wasted. now the hq posts
+	// shared background jobs here, and every robot with time left over works on whichever posted job has the highest priority.
+	// each job is three channels: its priority (0 if it isn't posted), a cursor for how far along it is, and one more channel
+	// of scratch space for its partial result. robots take turns, so a job's progress is just whatever the last robot left.
+	public static final int JOB_PATHFINDING = 0;
+	public static final int JOB_ORE_SURVEY = 1;
+	public static final int NUM_JOBS = 2;
+	private static final int jobBoardBaseAddr = 38116;
+
+	public static void postJob(RobotController rc, int job, int priority) throws GameActionException {
+		rc.broadcast(jobBoardBaseAddr + 3 * job, priority);
+	}
+
+	public static int getJobPriority(RobotController rc, int job) throws GameActionException {
+		return rc.readBroadcast(jobBoardBaseAddr + 3 * job);
 	}
 
-	private static boolean isTowerInPeril(RobotController rc) throws GameActionException {
-		return rc.readBroadcast(isTowerInPerilChannel) == 1;
+	public static void finishJob(RobotController rc, int job) throws GameActionException {
+		rc.broadcast(jobBoardBaseAddr + 3 * job, 0);
+		rc.broadcast(jobBoardBaseAddr + 3 * job + 1, 0);
+		rc.broadcast(jobBoardBaseAddr + 3 * job + 2, 0);
+	}
+
+	public static int getJobCursor(RobotController rc, int job) throws GameActionException {
+		return rc.readBroadcast(jobBoardBaseAddr + 3 * job + 1);
+	}
+
+	public static int getJobScratch(RobotController rc, int job) throws GameActionException {
+		return rc.readBroadcast(jobBoardBaseAddr + 3 * job + 2);
+	}
+
+	public static void saveJobProgress(RobotController rc, int job, int cursor, int scratch) throws GameActionException {
+		rc.broadcast(jobBoardBaseAddr + 3 * job + 1, cursor);
+		rc.broadcast(jobBoardBaseAddr + 3 * job + 2, scratch);
+	}
+
+	private static final int overrunsChannel = 38115;
+
+	public static void reportOverrun(RobotController rc) throws GameActionException {
+		rc.broadcast(overrunsChannel, rc.readBroadcast(overrunsChannel) + 1);
+	}
+
+	// 64661: the round both pathfinding queues first ran dry. the game doesn't need it, it's for measuring how fast the distance
+	// fields converge (bctools.MatchRunner picks up the message).
+	private static final int pathfindingDoneChannel = 64661;
+
+	// returns true if nobody had reported it yet
+	public static boolean reportPathfindingDone(RobotController rc) throws GameActionException {
+		if (rc.readBroadcast(pathfindingDoneChannel) != 0) {
+			return false;
+		}
+		rc.broadcast(pathfindingDoneChannel, Clock.getRoundNum());
+		return true;
 	}
 
 	private static final int strategyChannel = 64664;
@@ -426,15 +936,17 @@ public class BroadcastInterface {
 		}
 	}
 
-	public static int addLauncherAndGetLauncherIndex(RobotController rc, int launcherId) throws GameActionException {
-		for (int i = 0; i < launcherListSize / 3; i++) {
-			int id = rc.readBroadcast(launcherTargetListListBaseChannel + i * 3);
-			if (id == 0) {
-				rc.broadcast(launcherTargetListListBaseChannel + i * 3, launcherId);
-				return i;
-			}
+	public static final int LAUNCHER_SLOTS = launcherListSize / 3;
+
+	// takes the slot for this launcher if nobody else has it. launchers check slots a few at a time (see
+	// LauncherHandler.RegisterLauncher), since scanning the whole list can take most of a turn.
+	public static boolean claimLauncherSlot(RobotController rc, int slot, int launcherId) throws GameActionException {
+		int channel = launcherTargetListListBaseChannel + slot * 3;
+		if (rc.readBroadcast(channel) != 0) {
+			return false;
 		}
-		return -1;
+		rc.broadcast(channel, launcherId);
+		return true;
 	}
 
 	public static int getLauncherIndex(RobotController rc, int launcherId) throws GameActionException {
@@ -457,24 +969,10 @@ public class BroadcastInterface {
 		}
 	}
 
-	// 65265: a map location of the next tower/hq to go to
+	// 65265: (free, used to be the next tower/hq to go to, which is the siege plan now)
 	// 65266: a flag of whether to move into tower range
-	// 65267: a count of the number of allies in tower range
-	private static final int nextTargetChannel = 65265;
+	// 65267: (free, used to be a count of the number of allies in tower range, which is the rally point now)
 	private static final int advanceBitChannel = 65266;
-	private static final int nearbyAllyCountsChannel = 65267;
-
-	public static void setNextTarget(RobotController rc, MapLocation target) throws GameActionException {
-		int combined = (target.x << 16) | (0xFFFF & target.y);
-		rc.broadcast(nextTargetChannel, combined);
-	}
-
-	public static MapLocation getNextTarget(RobotController rc) throws GameActionException {
-		int combined = rc.readBroadcast(nextTargetChannel);
-		int x = (combined >> 16);
-		int y = (short) (0xFFFF & combined);
-		return new MapLocation(x, y);
-	}
 
 	public static boolean getAdvanceBit(RobotController rc) throws GameActionException {
 		return rc.readBroadcast(advanceBitChannel) == 1;
@@ -484,18 +982,41 @@ public class BroadcastInterface {
 		rc.broadcast(advanceBitChannel, value ? 1 : 0);
 	}
 
-	public static int getAlliesInPosition(RobotController rc) throws GameActionException {
-		return rc.readBroadcast(nearbyAllyCountsChannel);
+	// the rally point
+	// like the census, units report on alternating banks, so the hq can read a complete count of last round. each channel is
+	// (round << 16) | value, so a stale count reads as 0 and nobody has to clear anything.
+	private static final int rallyBaseChannel = 38071;
+	private static final int RALLY_BANK_SIZE = 1 + NUM_ROBOT_INDICES;
+
+	public static void reportInPosition(RobotController rc, RobotType type) throws GameActionException {
+		incrementRallyChannel(rc, 1 + getRobotIndex(type), 1);
+	}
+
+	public static void reportArriving(RobotController rc, int combatValue) throws GameActionException {
+		incrementRallyChannel(rc, 0, combatValue);
 	}
 
-	public static void clearAlliesInPosition(RobotController rc) throws GameActionException {
-		rc.broadcast(nearbyAllyCountsChannel, 0);
+	private static void incrementRallyChannel(RobotController rc, int offset, int amount) throws GameActionException {
+		int roundNum = Clock.getRoundNum();
+		int channel = rallyBaseChannel + (roundNum & 0x1) * RALLY_BANK_SIZE + offset;
+		int entry = rc.readBroadcast(channel);
+		if ((entry >>> 16) == roundNum) {
+			rc.broadcast(channel, entry + amount);
+		} else {
+			rc.broadcast(channel, (roundNum << 16) | amount);
+		}
 	}
 
-	public static void incrementAlliesInPosition(RobotController rc) throws GameActionException {
-		int value = getAlliesInPosition(rc);
-		value++;
-		rc.broadcast(nearbyAllyCountsChannel, value);
+	// fills in how many of each type (by getRobotIndex()) were in position last round, and returns the combat value that was about to arrive
+	public static int readLastRoundRally(RobotController rc, int[] countsByType) throws GameActionException {
+		int lastRound = Clock.getRoundNum() - 1;
+		int base = rallyBaseChannel + (lastRound & 0x1) * RALLY_BANK_SIZE;
+		for (int i = 0; i < countsByType.length; i++) {
+			int entry = rc.readBroadcast(base + 1 + i);
+			countsByType[i] = (entry >>> 16) == lastRound ? entry & 0xFFFF : 0;
+		}
+		int arriving = rc.readBroadcast(base);
+		return (arriving >>> 16) == lastRound ? arriving & 0xFFFF : 0;
 	}
 
 }
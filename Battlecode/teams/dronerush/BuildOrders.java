@@ -0,0 +1,17 @@
+package dronerush;
+
+import battlecode.common.RobotType;
+
+/**
+ * The order beavers put up each strategy's buildings in, from tools/bctools/BuildOrderPlanner.
+ *
+ * This file is generated ("ant build-orders"), so don't edit it by hand. It was planned with a beam width of 64.
+ */
+public class BuildOrders {
+
+	public static final RobotType[] DRONE_RUSH_OPENING = { RobotType.MINERFACTORY, RobotType.HELIPAD,
+			RobotType.TECHNOLOGYINSTITUTE, RobotType.AEROSPACELAB, RobotType.BARRACKS, RobotType.TANKFACTORY, RobotType.TRAININGFIELD };
+
+	public static final RobotType[] SOLDIER_MASS_OPENING = { RobotType.MINERFACTORY, RobotType.BARRACKS,
+			RobotType.TECHNOLOGYINSTITUTE, RobotType.HELIPAD, RobotType.TANKFACTORY, RobotType.AEROSPACELAB, RobotType.TRAININGFIELD };
+}
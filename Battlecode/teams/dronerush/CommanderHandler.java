@@ -1,15 +1,15 @@
 package dronerush;
 
-import java.util.Arrays;
-import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
 
 import battlecode.common.CommanderSkillType;
+import battlecode.common.Direction;
 import battlecode.common.GameActionException;
 import battlecode.common.GameConstants;
 import battlecode.common.MapLocation;
 import battlecode.common.RobotController;
+import battlecode.common.RobotType;
 
 public class CommanderHandler extends BaseRobotHandler {
 
@@ -56,7 +56,7 @@ public class CommanderHandler extends BaseRobotHandler {
 	private final Action charge = new MoveTowardEnemyHq(false, false);
 	private final Action useHeavyHands = new HeavyHands();
 
-	private class HeavyHands implements Action {
+	private class HeavyHands extends Action {
 		@Override
 		public boolean run() throws GameActionException {
 			// TODO Auto-generated method stub
@@ -65,30 +65,48 @@ public class CommanderHandler extends BaseRobotHandler {
 		}
 	}
 
-	public class RetreatWithFlash implements Action {
-
-		private int[][] orderedFlashOffsets;
+	// every tile we can flash to that gets us closer in each direction (indexed like Util.actualDirections), best first. a tile
+	// that makes more progress in that direction comes first, and among equals, the longer flash. these are precomputed so an
+	// emergency flash doesn't have to build and sort them on the turn it's needed.
+	private static final int[][] FLASH_DX = {
+			{ -1, 1, 0, -2, 2, -1, 1, 0, -3, 3, -2, 2, -1, 1, 0 }, // north
+			{ 1, 3, 2, 0, 3, 1, 2, -1, 3, 0, 2, 1, -1, 2, 0, 1 }, // north east
+			{ 3, 3, 3, 2, 2, 2, 2, 2, 1, 1, 1, 1, 1, 1, 1 }, // east
+			{ 1, 3, 2, 0, 3, 1, 2, -1, 3, 0, 2, 1, -1, 2, 0, 1 }, // south east
+			{ -1, 1, 0, -2, 2, -1, 1, 0, -3, 3, -2, 2, -1, 1, 0 }, // south
+			{ -3, -1, -2, -3, 0, -2, -1, -3, 1, -2, 0, -1, -2, 1, -1, 0 }, // south west
+			{ -3, -3, -3, -2, -2, -2, -2, -2, -1, -1, -1, -1, -1, -1, -1 }, // west
+			{ -3, -1, -2, -3, 0, -2, -1, -3, 1, -2, 0, -1, -2, 1, -1, 0 } // north west
+	};
+	private static final int[][] FLASH_DY = {
+			{ -3, -3, -3, -2, -2, -2, -2, -2, -1, -1, -1, -1, -1, -1, -1 }, // north
+			{ -3, -1, -2, -3, 0, -2, -1, -3, 1, -2, 0, -1, -2, 1, -1, 0 }, // north east
+			{ -1, 1, 0, -2, 2, -1, 1, 0, -3, 3, -2, 2, -1, 1, 0 }, // east
+			{ 3, 1, 2, 3, 0, 2, 1, 3, -1, 2, 0, 1, 2, -1, 1, 0 }, // south east
+			{ 3, 3, 3, 2, 2, 2, 2, 2, 1, 1, 1, 1, 1, 1, 1 }, // south
+			{ 1, 3, 2, 0, 3, 1, 2, -1, 3, 0, 2, 1, -1, 2, 0, 1 }, // south west
+			{ -1, 1, 0, -2, 2, -1, 1, 0, -3, 3, -2, 2, -1, 1, 0 }, // west
+			{ -1, -3, -2, 0, -3, -1, -2, 1, -3, 0, -2, -1, 1, -2, 0, -1 } // north west
+	};
+
+	public class RetreatWithFlash extends Action {
+
+		// towers and the hq further away than this can't shoot any tile we could flash to
+		private final int towerReachSq;
+		private final int[] hqReachSq = new int[3];
 
 		public RetreatWithFlash() {
-			orderedFlashOffsets = generateOrderedFlashOffsets();
+			double flashRange = Math.sqrt(GameConstants.FLASH_RANGE_SQUARED);
+			towerReachSq = reach(RobotType.TOWER.attackRadiusSquared, flashRange);
+			// the same hq ranges inEnemyHqOrTowerRange() uses, for fewer than 2, fewer than 5, and 5 or more towers
+			hqReachSq[0] = reach(RobotType.HQ.attackRadiusSquared, flashRange);
+			hqReachSq[1] = reach(GameConstants.HQ_BUFFED_ATTACK_RADIUS_SQUARED, flashRange);
+			hqReachSq[2] = reach(52, flashRange);
 		}
 
-		private int[][] generateOrderedFlashOffsets() {
-			MapLocation[] outsourcedPositions = MapLocation.getAllMapLocationsWithinRadiusSq(new MapLocation(0, 0),
-					GameConstants.FLASH_RANGE_SQUARED);
-			int[][] result = new int[outsourcedPositions.length][3];
-			for (int i = 0; i < outsourcedPositions.length; i++) {
-				result[i][0] = outsourcedPositions[i].x;
-				result[i][1] = outsourcedPositions[i].y;
-				result[i][2] = result[i][0] * result[i][0] + result[i][1] * result[i][1];
-			}
-			Arrays.sort(result, new Comparator<int[]>() {
-				@Override
-				public int compare(int[] a, int[] b) {
-					return b[2] - a[2];
-				}
-			});
-			return result;
+		private int reach(int attackRadiusSquared, double flashRange) {
+			double r = Math.sqrt(attackRadiusSquared) + flashRange;
+			return (int) (r * r);
 		}
 
 		@Override
@@ -97,32 +115,59 @@ public class CommanderHandler extends BaseRobotHandler {
 				return false;
 			}
 
+			MapLocation here = rc.getLocation();
 			MapLocation ourHq = getOurHqLocation();
+			Direction towardHq = here.directionTo(ourHq);
+			if (towardHq == Direction.OMNI || towardHq == Direction.NONE) {
+				return false;
+			}
+			// usually nothing of theirs is anywhere close, and then we don't have to check each tile
+			boolean mightBeInDanger = isEnemyHqOrTowerInReach(here);
+
 			// should we use the pathfinding dist or the actual dist here?
 			// it sort of makes sense to use the actual dist, since we can flash over obstacles and we'd need to use this in a pinch
-			int minDist = rc.getLocation().distanceSquaredTo(ourHq);
-			MapLocation best = null;
-			// System.out.println("bytecodes at start of loop: " + Clock.getBytecodeNum());
-			for (int[] offset : orderedFlashOffsets) {
-				MapLocation loc = rc.getLocation().add(offset[0], offset[1]);
-				// System.out.println("bytecodes at current iteration: " + Clock.getBytecodeNum());
-				int locDist = loc.distanceSquaredTo(ourHq);
-				if (locDist < minDist) {
-
-					if (rc.senseTerrainTile(loc).isTraversable() && rc.senseRobotAtLocation(loc) == null) {
-						if (!inEnemyHqOrTowerRange(loc)) {
-							minDist = locDist;
-							best = loc;
-						}
-					}
+			int curDist = here.distanceSquaredTo(ourHq);
+			int[] dxs = FLASH_DX[towardHq.ordinal()];
+			int[] dys = FLASH_DY[towardHq.ordinal()];
+			for (int i = 0; i < dxs.length; i++) {
+				MapLocation loc = here.add(dxs[i], dys[i]);
+				if (loc.distanceSquaredTo(ourHq) >= curDist) {
+					continue;
 				}
-			}
-			if (best != null) {
-				rc.castFlash(best);
+				if (!rc.senseTerrainTile(loc).isTraversable()) {
+					continue;
+				}
+				if (mightBeInDanger && inEnemyHqOrTowerRange(loc)) {
+					continue;
+				}
+				// this is the expensive one, so it goes last
+				if (rc.senseRobotAtLocation(loc) != null) {
+					continue;
+				}
+				// the offsets are in order, so the first one that works is as good as it gets
+				checkTurn();
+				rc.castFlash(loc);
 				return true;
 			}
 			return false;
 		}
-	}
 
+		private boolean isEnemyHqOrTowerInReach(MapLocation loc) {
+			MapLocation[] enemyTowers = getEnemyTowerLocations();
+			for (MapLocation enemyTower : enemyTowers) {
+				if (loc.distanceSquaredTo(enemyTower) <= towerReachSq) {
+					return true;
+				}
+			}
+			int hqReach;
+			if (enemyTowers.length >= 5) {
+				hqReach = hqReachSq[2];
+			} else if (enemyTowers.length >= 2) {
+				hqReach = hqReachSq[1];
+			} else {
+				hqReach = hqReachSq[0];
+			}
+			return loc.distanceSquaredTo(getEnemyHqLocation()) <= hqReach;
+		}
+	}
 }
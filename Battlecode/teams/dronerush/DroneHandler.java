@@ -42,6 +42,7 @@ public class DroneHandler extends BaseRobotHandler {
 		} else {
 			// skirt the towers and hq so that we can kill other units
 			result.add(attackWithStats);
+			result.add(huntWorkers);
 			result.add(advanceAvoidingEnemies);
 		}
 		return result;
@@ -56,10 +57,37 @@ public class DroneHandler extends BaseRobotHandler {
 	}
 
 	private final AttackAndRecordStatistics attackWithStats = new AttackAndRecordStatistics();
-	private final Action retreat = new MoveTo(getOurHqLocation(), /* avoidEnemies */true, /* avoidEnemiesAndTowers */true);
+	private final Action retreat = new FlyHome();
 	private final Action advanceAvoidingEnemies = new MoveTo(getEnemyHqLocation(), /* avoidEnemiesAndTowers */true, /* avoidEnemiesAndTowers */
 	true);
 	private final Action deliverSupplies = new DeliverSupplies();
+	private final Action huntWorkers = new HuntSightedWorkers();
+
+	// beavers and miners are the easiest kills, and the sighting log tells us where they were lately. if there aren't any,
+	// fall through to advancing on the enemy hq.
+	private class HuntSightedWorkers extends Action {
+		private final SightingFinder workers = new SightingFinder(WORKER_SIGHTINGS, 20, 5);
+		private MapLocation curTarget = null;
+		private Action curAction;
+
+		@Override
+		public boolean run() throws GameActionException {
+			MapLocation sighting = workers.find(rc.getLocation());
+			if (sighting == null || inEnemyHqOrTowerRange(sighting)) {
+				return false;
+			}
+			if (rc.getLocation().distanceSquaredTo(sighting) <= 2 && getNearbyEnemies().length == 0) {
+				// they got away
+				workers.forgetOldSightings();
+				return false;
+			}
+			if (!sighting.equals(curTarget)) {
+				curTarget = sighting;
+				curAction = new MoveTo(sighting, true, true);
+			}
+			return curAction.run();
+		}
+	}
 
 	private class AttackAndRecordStatistics extends Attack {
 		public double totalDamageDealt = 0;
@@ -82,7 +110,7 @@ public class DroneHandler extends BaseRobotHandler {
 		}
 	}
 
-	private class DeliverSupplies implements Action {
+	private class DeliverSupplies extends Action {
 
 		private RobotInfo[] enemyRobots = null;
 
@@ -108,6 +136,7 @@ public class DroneHandler extends BaseRobotHandler {
 					}
 					RobotInfo targetRobot = rc.senseRobot(curTargetID);
 					if (rc.getLocation().distanceSquaredTo(targetRobot.location) <= GameConstants.SUPPLY_TRANSFER_RADIUS_SQUARED) {
+						checkTurn();
 						rc.transferSupplies(10000, targetRobot.location);
 						curTargetID = -1;
 					} else {
@@ -124,6 +153,7 @@ public class DroneHandler extends BaseRobotHandler {
 						}
 
 						if (nextDir != null) {
+							checkTurn();
 							rc.move(nextDir);
 							return true;
 						}
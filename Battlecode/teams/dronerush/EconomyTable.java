@@ -0,0 +1,43 @@
+package dronerush;
+
+/**
+ * Miner counts and miner factory timing for each ore profile, from tools/bctools/EconomySimulator.
+ *
+ * This file is generated ("ant economy-table"), so don't edit it by hand. It was optimized for the most ore in the bank at
+ * round 1000, with mining thresholds from Parameters as they were at the time.
+ */
+public class EconomyTable {
+
+	// upper bounds on the average ore per tile around the hq for each profile. the last profile is everything above.
+	public static final double[] PROFILE_UPPER_BOUNDS = { 5.0, 10.0, 15.0, 25.0, 40.0 };
+
+	// how many miners to keep. the search breaks ties toward fewer miners, so this many get built before the stop round.
+	// after the stop round, new miners won't pay for themselves, so the target only decides how many losses to replace.
+	public static final int[] MINER_TARGET = { 3, 5, 10, 11, 14, 22 };
+	public static final int[] STOP_MINERS_ROUND = { 175, 225, 325, 325, 400, 550 };
+	// when to build a second miner factory, or -1 for never
+	public static final int[] SECOND_MINER_FACTORY_ROUND = { -1, -1, -1, -1, -1, -1 };
+
+	public static int profileOf(double averageOre) {
+		for (int i = 0; i < PROFILE_UPPER_BOUNDS.length; i++) {
+			if (averageOre < PROFILE_UPPER_BOUNDS[i]) {
+				return i;
+			}
+		}
+		return PROFILE_UPPER_BOUNDS.length;
+	}
+
+	public static int minerTarget(int profile) {
+		return MINER_TARGET[profile];
+	}
+
+	// whether it's too late for extra miners to pay for themselves, so we should only replace the ones we lose
+	public static boolean isMinerGrowthOver(int profile, int roundNum) {
+		return roundNum >= STOP_MINERS_ROUND[profile];
+	}
+
+	public static int minerFactoriesWanted(int profile, int roundNum) {
+		int secondFactoryRound = SECOND_MINER_FACTORY_ROUND[profile];
+		return (secondFactoryRound >= 0 && roundNum >= secondFactoryRound) ? 2 : 1;
+	}
+}
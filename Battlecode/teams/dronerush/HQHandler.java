@@ -10,11 +10,18 @@ import battlecode.common.MapLocation;
 import battlecode.common.RobotController;
 import battlecode.common.RobotInfo;
 import battlecode.common.RobotType;
+import battlecode.common.TerrainTile;
 
 public class HQHandler extends BaseBuildingHandler {
 
 	protected HQHandler(RobotController rc) {
 		super(rc);
+		for (RobotType type : RobotType.values()) {
+			int index = BroadcastInterface.getRobotIndex(type);
+			if (index >= 0) {
+				rallyValues[index] = combatValue(type);
+			}
+		}
 	}
 
 	@Override
@@ -22,10 +29,60 @@ public class HQHandler extends BaseBuildingHandler {
 		// seed the distances for pathfinding
 		BroadcastInterface.setDistance(rc, rc.getLocation().x, rc.getLocation().y, 1, rc.getLocation());
 		BroadcastInterface.enqueuePathfindingQueue(rc, rc.getLocation().x, rc.getLocation().y);
+		BroadcastInterface.writeTile(rc, rc.getLocation().x, rc.getLocation().y, BroadcastInterface.withAirDistance(
+				BroadcastInterface.readTile(rc, rc.getLocation().x, rc.getLocation().y, rc.getLocation()), 1), rc.getLocation());
+		BroadcastInterface.enqueueAirPathfindingQueue(rc, rc.getLocation().x, rc.getLocation().y);
 
 		checkIfRotatedOrReflected();
 
 		chooseStrategy();
+
+		// nothing matters more than the bfs early on. everything from the hq's distance to the enemy to the siege plan uses it.
+		BroadcastInterface.postJob(rc, BroadcastInterface.JOB_PATHFINDING, PATHFINDING_URGENT_PRIORITY);
+
+		// units read the siege plan as soon as they spawn, and an empty plan channel would send them to (0, 0). so until
+		// PlanSiege is done, the plan is just their hq.
+		siegePlan = new MapLocation[] { getEnemyHqLocation() };
+		siegePlanNumber++;
+		oldTowerCount = getEnemyTowerLocations().length;
+		BroadcastInterface.writeSiegePlan(rc, siegePlan, siegePlanNumber);
+
+		// neither of these is needed right away, so they don't get to eat into our first turns
+		schedule(new ClassifyOre());
+		// the bfs hasn't gotten anywhere yet, so this is just a rough plan until updateSiegePlan() makes a real one
+		schedule(new PlanSiege());
+	}
+
+	// how much ore there is around the hq decides how many miners are worth making (see EconomyTable). the hq can see a
+	// decent patch of the map, so average over that.
+	private static final int ORE_SAMPLE_RADIUS_SQ = 24;
+
+	private class ClassifyOre implements Task {
+		private MapLocation[] sampled = null;
+		private int next = 0;
+		private double totalOre = 0;
+		private int numTiles = 0;
+
+		@Override
+		public boolean work(int bytecodeLimit) throws GameActionException {
+			if (sampled == null) {
+				sampled = MapLocation.getAllMapLocationsWithinRadiusSq(rc.getLocation(), ORE_SAMPLE_RADIUS_SQ);
+			}
+			while (next < sampled.length) {
+				if (Clock.getBytecodeNum() >= bytecodeLimit) {
+					return false;
+				}
+				MapLocation loc = sampled[next++];
+				if (rc.senseTerrainTile(loc) == TerrainTile.NORMAL) {
+					totalOre += rc.senseOre(loc);
+					numTiles++;
+				}
+			}
+			if (numTiles > 0) {
+				BroadcastInterface.setOreProfile(rc, EconomyTable.profileOf(totalOre / numTiles));
+			}
+			return true;
+		}
 	}
 
 	private void atBeginningOfTurn() throws GameActionException {
@@ -39,52 +96,250 @@ public class HQHandler extends BaseBuildingHandler {
 
 		BroadcastInterface.resetAbundantOre(rc);
 
-		BroadcastInterface.resetTowerInPeril(rc);
-
 		calculateAdvancementTactics();
+
+		checkOpeningBuildings();
+
+		postBackgroundJobs();
+
+		recordTeamMemory();
+	}
+
+	// the job board (see BroadcastInterface.postJob()). the bfs comes first until it has reached everything the siege plan needs.
+	// after that, keeping the ore pointer honest is worth more than mapping the last corners of the map.
+	private static final int PATHFINDING_URGENT_PRIORITY = 3;
+	private static final int ORE_SURVEY_PRIORITY = 2;
+	private static final int PATHFINDING_PRIORITY = 1;
+	private static final int ORE_SURVEY_PERIOD = 50;
+	private boolean isPathfindingUrgent = true;
+
+	private void postBackgroundJobs() throws GameActionException {
+		if (isPathfindingUrgent && isSiegePlanFinal) {
+			isPathfindingUrgent = false;
+			BroadcastInterface.postJob(rc, BroadcastInterface.JOB_PATHFINDING, PATHFINDING_PRIORITY);
+		}
+		int roundNum = Clock.getRoundNum();
+		// a survey that's still going from last time just keeps going
+		if (roundNum % ORE_SURVEY_PERIOD == 0 && BroadcastInterface.getJobPriority(rc, BroadcastInterface.JOB_ORE_SURVEY) == 0) {
+			BroadcastInterface.postJob(rc, BroadcastInterface.JOB_ORE_SURVEY, ORE_SURVEY_PRIORITY);
+		}
+	}
+
+	// if a building from the opening dies, rewind the build cursor so beavers rebuild it (just it, the cursor jumps back after,
+	// see Strategy.onBuildingStarted()). a building that was just started
+	// might not be in the census yet, so only believe it's missing if it's still missing at the next check.
+	private static final int OPENING_CHECK_PERIOD = 25;
+	private int lastMissingOpeningBuilding = -1;
+
+	private void checkOpeningBuildings() throws GameActionException {
+		if (Clock.getRoundNum() % OPENING_CHECK_PERIOD != 0) {
+			return;
+		}
+		int missing = curStrategy.findMissingOpeningBuilding();
+		if (missing >= 0 && missing == lastMissingOpeningBuilding) {
+			BroadcastInterface.rewindBuildCursor(rc, missing);
+			missing = -1;
+		}
+		lastMissingOpeningBuilding = missing;
 	}
 
+	// the order we take out the enemy towers in, ending with their hq. it's planned once the bfs has reached all of them, and
+	// after that the cursor just moves forward as towers die.
+	private MapLocation[] siegePlan;
+	private int siegePlanNumber = 0;
+	private int siegeIndex = 0;
 	private int oldTowerCount = -1;
+	private boolean isSiegePlanFinal = false;
+	private final int[] rallyCounts = new int[BroadcastInterface.NUM_ROBOT_INDICES];
+	// combatValue() does floating point math, so don't redo it every turn
+	private final int[] rallyValues = new int[BroadcastInterface.NUM_ROBOT_INDICES];
+
+	// if the bfs still hasn't reached every tower by now, it probably never will (they're walled off), so plan anyway
+	private static final int SIEGE_PLAN_DEADLINE = 300;
+	private static final int SIEGE_PLAN_CHECK_PERIOD = 10;
+	// roughly what it costs, in moves, to fight through a tower while another tower (or their hq) can shoot at us too
+	private static final int SUPPORT_PENALTY = 20;
+	// a tower supports another if their ranges overlap, i.e. the attackers of one are in range of the other
+	private static final int TOWER_SUPPORT_DIST_SQ = 4 * RobotType.TOWER.attackRadiusSquared;
+	private static final int HQ_SUPPORT_DIST_SQ = (int) Math.pow(Math.sqrt(GameConstants.HQ_BUFFED_ATTACK_RADIUS_SQUARED)
+			+ Math.sqrt(RobotType.TOWER.attackRadiusSquared), 2);
 
 	private void calculateAdvancementTactics() throws GameActionException {
-		MapLocation[] enemyTowers = getEnemyTowerLocations();
-		int curTowerCount = enemyTowers.length;
-		if (curTowerCount != oldTowerCount) {
-			// get a new target any time the enemy loses a tower
-			oldTowerCount = curTowerCount;
-			if (curTowerCount == 0) {
-				BroadcastInterface.setNextTarget(rc, getEnemyHqLocation());
-			} else {
-				// pick the closest one
-				// TODO: proceed through the towers in a sensible order
-				int next = 0;
-				int dist = Integer.MAX_VALUE;
-				// TODO: cache a sorted list of tower distances, so we don't have to recalculate
-				for (int i = 0; i < enemyTowers.length; i++) {
-					int curDist = getOurHqLocation().distanceSquaredTo(enemyTowers[i]);
-					if (curDist < dist) {
-						next = i;
-						dist = curDist;
-					}
-				}
-				BroadcastInterface.setNextTarget(rc, enemyTowers[next]);
-			}
+		updateSiegePlan();
+
+		// advance once enough is at the staging point. once we're in, don't fall back just because some of the army is still on
+		// its way, as long as the backup is close.
+		int arriving = BroadcastInterface.readLastRoundRally(rc, rallyCounts);
+		int inPosition = 0;
+		for (int i = 0; i < rallyCounts.length; i++) {
+			inPosition += rallyCounts[i] * rallyValues[i];
 		}
-
-		int curCount = BroadcastInterface.getAlliesInPosition(rc);
-		BroadcastInterface.clearAlliesInPosition(rc);
 		boolean isSet = BroadcastInterface.getAdvanceBit(rc);
 		if (isSet) {
-			if (curCount <= 4) {
+			if (inPosition + arriving <= Parameters.RALLY_VALUE_TO_FALL_BACK) {
 				BroadcastInterface.setAdvanceBit(rc, false);
 			}
 		} else {
-			if (curCount >= 9) {
+			if (inPosition >= Parameters.RALLY_VALUE_TO_ADVANCE) {
 				BroadcastInterface.setAdvanceBit(rc, true);
 			}
 		}
 	}
 
+	private void updateSiegePlan() throws GameActionException {
+		int roundNum = Clock.getRoundNum();
+		if (!isSiegePlanFinal
+				&& (roundNum >= SIEGE_PLAN_DEADLINE || (roundNum % SIEGE_PLAN_CHECK_PERIOD == 0 && isSiegeMapped()))) {
+			isSiegePlanFinal = true;
+			schedule(new PlanSiege());
+			return;
+		}
+
+		if (siegePlan == null) {
+			// init() didn't get as far as the placeholder plan
+			return;
+		}
+
+		MapLocation[] enemyTowers = getEnemyTowerLocations();
+		if (enemyTowers.length == oldTowerCount) {
+			return;
+		}
+		oldTowerCount = enemyTowers.length;
+		// towers don't always die in the order we planned (e.g. when a drone picks one off), so skip all the dead ones. the hq is
+		// last, and it's the game when it dies.
+		int index = siegeIndex;
+		while (index < siegePlan.length - 1 && !contains(enemyTowers, siegePlan[index])) {
+			index++;
+		}
+		if (index != siegeIndex) {
+			siegeIndex = index;
+			BroadcastInterface.setSiegeCursor(rc, siegePlanNumber, siegeIndex);
+		}
+	}
+
+	private boolean isSiegeMapped() throws GameActionException {
+		if (getDistanceFromOurHq(getEnemyHqLocation()) == 0) {
+			return false;
+		}
+		for (MapLocation tower : getEnemyTowerLocations()) {
+			if (getDistanceFromOurHq(tower) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean contains(MapLocation[] locs, MapLocation loc) {
+		for (MapLocation other : locs) {
+			if (other.equals(loc)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// greedily pick the tower that's cheapest to go take out next: the walk there, plus a penalty for every tower still
+	// standing (and their hq) that covers it. taking out the supporting towers first makes the later ones cheaper, so this
+	// tends to peel a cluster from the outside in, instead of diving into the middle of it because it's a little closer.
+	// it's a Task, since looking up distances for every tower and comparing every pair can take a good chunk of a turn
+	private class PlanSiege implements Task {
+		private MapLocation[] towers;
+		private MapLocation enemyHq;
+		private MapLocation[] plan;
+		private boolean[] taken;
+		// the distance lookups aren't free, so do them once per tower instead of once per pair
+		private int[] ourDist;
+		private int[] theirDist;
+		private int numLookedUp = 0;
+		private int step = 0;
+
+		private MapLocation from;
+		private int fromOurDist;
+		private int fromTheirDist;
+
+		@Override
+		public boolean work(int bytecodeLimit) throws GameActionException {
+			if (towers == null) {
+				towers = getEnemyTowerLocations();
+				enemyHq = getEnemyHqLocation();
+				plan = new MapLocation[Math.min(towers.length, BroadcastInterface.MAX_SIEGE_PLAN_LENGTH - 1) + 1];
+				taken = new boolean[towers.length];
+				ourDist = new int[towers.length];
+				theirDist = new int[towers.length];
+				from = getOurHqLocation();
+				fromOurDist = 1;
+				fromTheirDist = getDistanceFromEnemyHq(from);
+			}
+			while (numLookedUp < towers.length) {
+				if (Clock.getBytecodeNum() >= bytecodeLimit) {
+					return false;
+				}
+				ourDist[numLookedUp] = getDistanceFromOurHq(towers[numLookedUp]);
+				theirDist[numLookedUp] = getDistanceFromEnemyHq(towers[numLookedUp]);
+				numLookedUp++;
+			}
+			while (step < plan.length - 1) {
+				if (Clock.getBytecodeNum() >= bytecodeLimit) {
+					return false;
+				}
+				int best = -1;
+				int bestCost = Integer.MAX_VALUE;
+				for (int i = 0; i < towers.length; i++) {
+					if (taken[i]) {
+						continue;
+					}
+					int cost = estimateMoves(from, fromOurDist, fromTheirDist, towers[i], ourDist[i], theirDist[i])
+							+ SUPPORT_PENALTY * countSupporters(towers, taken, i, enemyHq);
+					if (cost < bestCost) {
+						bestCost = cost;
+						best = i;
+					}
+				}
+				taken[best] = true;
+				plan[step++] = towers[best];
+				from = towers[best];
+				fromOurDist = ourDist[best];
+				fromTheirDist = theirDist[best];
+			}
+			plan[step] = enemyHq;
+
+			siegePlan = plan;
+			siegePlanNumber++;
+			siegeIndex = 0;
+			// if a tower died while we were planning, updateSiegePlan() will notice and skip it
+			oldTowerCount = towers.length;
+			BroadcastInterface.writeSiegePlan(rc, plan, siegePlanNumber);
+			return true;
+		}
+	}
+
+	// we only have bfs distances from the two hqs, not between every pair of towers. but the walk from a to b is at least the
+	// straight line, and at least the difference in their distances from either hq, so take the biggest of those. a distance
+	// of 0 means the bfs hasn't been there yet.
+	private static int estimateMoves(MapLocation a, int ourA, int theirA, MapLocation b, int ourB, int theirB) {
+		int result = Math.max(Math.abs(a.x - b.x), Math.abs(a.y - b.y));
+		if (ourA != 0 && ourB != 0) {
+			result = Math.max(result, Math.abs(ourA - ourB));
+		}
+		if (theirA != 0 && theirB != 0) {
+			result = Math.max(result, Math.abs(theirA - theirB));
+		}
+		return result;
+	}
+
+	private int countSupporters(MapLocation[] towers, boolean[] taken, int target, MapLocation enemyHq) {
+		int result = 0;
+		for (int i = 0; i < towers.length; i++) {
+			if (i != target && !taken[i] && towers[i].distanceSquaredTo(towers[target]) <= TOWER_SUPPORT_DIST_SQ) {
+				result++;
+			}
+		}
+		if (enemyHq.distanceSquaredTo(towers[target]) <= HQ_SUPPORT_DIST_SQ) {
+			result++;
+		}
+		return result;
+	}
+
 	@Override
 	public int maxBytecodesToUse() {
 		return 9001;
@@ -108,6 +363,7 @@ public class HQHandler extends BaseBuildingHandler {
 		RobotInfo[] nearby = rc.senseNearbyRobots(8, rc.getTeam());
 		for (RobotInfo robot : nearby) {
 			if (robot.type == RobotType.DRONE) {
+				checkTurn();
 				rc.transferSupplies((int) rc.getSupplyLevel(), robot.location);
 				return true;
 			}
@@ -122,7 +378,8 @@ public class HQHandler extends BaseBuildingHandler {
 
 		// we can figure this out at the beginning of the game by comparing the arrangement of our towers to our opponent's
 		// however, it IS possible to be wrong. some maps may have identical tower placements whether they are rotated or reflected,
-		// and we would need to check the terrain and ore distributions to get a better idea
+		// and we would need to check the terrain and ore distributions to get a better idea. so we broadcast every configuration
+		// that fits, and robots rule them out as they explore (see BaseRobotHandler.disambiguateSymmetry())
 
 		MapLocation ourHq = rc.getLocation();
 		MapLocation theirHq = getEnemyHqLocation();
@@ -171,11 +428,57 @@ public class HQHandler extends BaseBuildingHandler {
 		}
 	}
 
+	private int strategyValue;
+
 	private void chooseStrategy() throws GameActionException {
-		Strategy.setStrategy(rc, !isDroneXml());
+		// if previous games against this opponent already told us to mass soldiers, there's no point in checking the map for
+		// drone walls, since that can only push us toward soldiers too
+		int preferredStrategy = TeamMemory.carryOverRecord(rc);
+		boolean shouldDroneRush;
+		if (preferredStrategy == Strategy.SOLDIER_MASS_VALUE) {
+			shouldDroneRush = false;
+		} else {
+			shouldDroneRush = !isDroneXml();
+		}
+		Strategy.setStrategy(rc, shouldDroneRush);
+		strategyValue = shouldDroneRush ? Strategy.DRONE_RUSH_VALUE : Strategy.SOLDIER_MASS_VALUE;
 		curStrategy = Strategy.getStrategy(rc);
 	}
 
+	// team memory is free to write, but gathering what goes in it isn't, so only do the expensive parts occasionally
+	private static final int TEAM_MEMORY_UPDATE_PERIOD = 5;
+	private int lastOurTowerCount = -1;
+	private int lastEnemyTowerCount = -1;
+	private int initialOurTowerCount = -1;
+	private int initialEnemyTowerCount = -1;
+	private long enemyPeaks = 0;
+
+	private void recordTeamMemory() throws GameActionException {
+		int roundNum = Clock.getRoundNum();
+		int ourTowerCount = getOurTowerLocations().length;
+		int enemyTowerCount = getEnemyTowerLocations().length;
+		if (initialOurTowerCount < 0) {
+			initialOurTowerCount = lastOurTowerCount = ourTowerCount;
+			initialEnemyTowerCount = lastEnemyTowerCount = enemyTowerCount;
+		}
+		// towers can only be destroyed, so any drop in the count is a loss
+		while (lastOurTowerCount > ourTowerCount) {
+			lastOurTowerCount--;
+			TeamMemory.recordTowerLoss(rc, true, initialOurTowerCount - lastOurTowerCount - 1, roundNum);
+		}
+		while (lastEnemyTowerCount > enemyTowerCount) {
+			lastEnemyTowerCount--;
+			TeamMemory.recordTowerLoss(rc, false, initialEnemyTowerCount - lastEnemyTowerCount - 1, roundNum);
+		}
+
+		boolean reachedRoundLimit = roundNum >= rc.getRoundLimit() - 1;
+		if (roundNum % TEAM_MEMORY_UPDATE_PERIOD == 0 || reachedRoundLimit || rc.getHealth() < RobotType.HQ.maxHealth / 4) {
+			enemyPeaks = TeamMemory.recordEnemyPeaks(rc, enemyPeaks);
+			int hqHealthPercent = (int) (100 * rc.getHealth() / RobotType.HQ.maxHealth);
+			TeamMemory.recordStatus(rc, strategyValue, roundNum, reachedRoundLimit, ourTowerCount, enemyTowerCount, hqHealthPercent);
+		}
+	}
+
 	private boolean isDroneXml() {
 		// some maps are built specifically to deter early drones
 		// the initial towers (plus hq) all form a wall around some large area of the map.
@@ -271,7 +574,6 @@ public class HQHandler extends BaseBuildingHandler {
 	}
 
 	// it turns out EnumMaps really suck. they cost like 5x more bytecodes.
-	private final int[] allyCounts = new int[RobotType.values().length];
 	private final int[] enemyCounts = new int[RobotType.values().length];
 
 	// we need to factor in that robots will always use some extra bytecodes
@@ -280,30 +582,26 @@ public class HQHandler extends BaseBuildingHandler {
 	private final double fractionToKeepSupplied = 0.6;
 
 	public void countUnitsAndCheckSupply() throws GameActionException {
+		// our robots count themselves (see BroadcastInterface.reportAlive()), so we only have to look at enemies. we can only
+		// sense the ones our robots can see, which is usually a lot fewer than our whole army.
 		// the actual max map radius is like 120*120 + 100*100 or something. idk. but this is bigger, so it's okay.
 		int MAX_MAP_RADIUS = 100000000;
-		RobotInfo[] allRobots = rc.senseNearbyRobots(MAX_MAP_RADIUS);
+		RobotInfo[] enemies = rc.senseNearbyRobots(MAX_MAP_RADIUS, rc.getTeam().opponent());
 
-		for (int i = 0; i < allyCounts.length; i++) {
-			allyCounts[i] = 0;
+		for (int i = 0; i < enemyCounts.length; i++) {
 			enemyCounts[i] = 0;
 		}
-		for (RobotInfo robot : allRobots) {
-			if (robot.team == rc.getTeam()) {
-				allyCounts[robot.type.ordinal()]++;
-			} else {
-				enemyCounts[robot.type.ordinal()]++;
-			}
+		for (RobotInfo robot : enemies) {
+			enemyCounts[robot.type.ordinal()]++;
 		}
 		int supplyUpkeepNeeded = 0;
 		for (RobotType type : RobotType.values()) {
-			BroadcastInterface.setRobotCount(rc, type, allyCounts[type.ordinal()], true);
-			supplyUpkeepNeeded += allyCounts[type.ordinal()] * type.supplyUpkeep;
+			supplyUpkeepNeeded += BroadcastInterface.getRobotCount(rc, type, true) * type.supplyUpkeep;
 
-			BroadcastInterface.setRobotCount(rc, type, enemyCounts[type.ordinal()], false);
+			BroadcastInterface.setEnemyRobotCount(rc, type, enemyCounts[type.ordinal()]);
 		}
 		double currentSupplyOutput = GameConstants.SUPPLY_GEN_BASE
-				* (GameConstants.SUPPLY_GEN_MULTIPLIER + Math.pow(allyCounts[RobotType.SUPPLYDEPOT.ordinal()],
+				* (GameConstants.SUPPLY_GEN_MULTIPLIER + Math.pow(BroadcastInterface.getRobotCount(rc, RobotType.SUPPLYDEPOT, true),
 						GameConstants.SUPPLY_GEN_EXPONENT));
 		BroadcastInterface.setBuildMoreSupplyDepots(rc, currentSupplyOutput < supplyUpkeepNeeded * excessSupplyFactor
 				* fractionToKeepSupplied);
@@ -312,7 +610,91 @@ public class HQHandler extends BaseBuildingHandler {
 	private final Action attack = new HqAttack();
 	private final Action makeBeavers = new SpawnUnit(RobotType.BEAVER, false);
 
-	private final class HqAttack implements Action {
+	private final class HqAttack extends Action {
+		// we score every tile we could shoot at on a grid centered on the hq. it's big enough for the sensing range plus one tile
+		// of splash in every direction.
+		private static final int GRID_RADIUS = 8;
+		private static final int GRID_WIDTH = 2 * GRID_RADIUS + 1;
+		// the tile we hit, then the 8 around it
+		private final int[] neighborOffsets = { 0, -GRID_WIDTH - 1, -GRID_WIDTH, -GRID_WIDTH + 1, -1, 1, GRID_WIDTH - 1,
+				GRID_WIDTH, GRID_WIDTH + 1 };
+		// how much of the hit the surrounding tiles take
+		private static final double SPLASH_FRACTION = 0.5;
+		// even free units (like missiles) are worth shooting
+		private static final int MIN_UNIT_VALUE = 20;
+
+		// which tiles we can actually hit, for the current range. towers rarely die, so this rarely changes.
+		private final boolean[] inRange = new boolean[GRID_WIDTH * GRID_WIDTH];
+		private int inRangeFor = -1;
+
+		// per-turn scores, only valid where the stamp matches the current round
+		private final double[] score = new double[GRID_WIDTH * GRID_WIDTH];
+		private final int[] scoreStamp = new int[GRID_WIDTH * GRID_WIDTH];
+		private final int[] candidates = new int[GRID_WIDTH * GRID_WIDTH];
+
+		// scoring the grid is the most expensive thing we do in a turn, so don't let the first try find that out the hard way
+		HqAttack() {
+			super(2500);
+		}
+
+		// picks the tile where the shot (and its splash, if we have it) does the most good: damage to expensive units, and
+		// especially kills. returns null if there's nothing we can hit.
+		private MapLocation chooseTarget(RobotInfo[] nearbyEnemies, int actualRangeSq, boolean hasAoeBuff) {
+			if (inRangeFor != actualRangeSq) {
+				for (int dx = -GRID_RADIUS; dx <= GRID_RADIUS; dx++) {
+					for (int dy = -GRID_RADIUS; dy <= GRID_RADIUS; dy++) {
+						inRange[(dx + GRID_RADIUS) * GRID_WIDTH + dy + GRID_RADIUS] = dx * dx + dy * dy <= actualRangeSq;
+					}
+				}
+				inRangeFor = actualRangeSq;
+			}
+
+			MapLocation here = rc.getLocation();
+			int roundNum = Clock.getRoundNum();
+			double damage = RobotType.HQ.attackPower;
+			double splashDamage = damage * SPLASH_FRACTION;
+			int numNeighbors = hasAoeBuff ? neighborOffsets.length : 1;
+			int numCandidates = 0;
+			for (RobotInfo enemy : nearbyEnemies) {
+				int dx = enemy.location.x - here.x;
+				int dy = enemy.location.y - here.y;
+				if (dx < -GRID_RADIUS + 1 || dx > GRID_RADIUS - 1 || dy < -GRID_RADIUS + 1 || dy > GRID_RADIUS - 1) {
+					continue;
+				}
+				int cell = (dx + GRID_RADIUS) * GRID_WIDTH + dy + GRID_RADIUS;
+				double value = Math.max(enemy.type.oreCost, MIN_UNIT_VALUE);
+				// what a full hit and a splash are worth against this unit: the fraction of its health we take, plus the whole
+				// thing if it dies
+				double hitScore = value * (Math.min(damage, enemy.health) / enemy.type.maxHealth + (damage >= enemy.health ? 1 : 0));
+				double splashScore = value
+						* (Math.min(splashDamage, enemy.health) / enemy.type.maxHealth + (splashDamage >= enemy.health ? 1 : 0));
+				for (int i = 0; i < numNeighbors; i++) {
+					// a shot at a neighbor of this enemy splashes it
+					int target = cell + neighborOffsets[i];
+					if (scoreStamp[target] != roundNum) {
+						scoreStamp[target] = roundNum;
+						score[target] = 0;
+						candidates[numCandidates++] = target;
+					}
+					score[target] += i == 0 ? hitScore : splashScore;
+				}
+			}
+
+			int best = -1;
+			double bestScore = 0;
+			for (int i = 0; i < numCandidates; i++) {
+				int cell = candidates[i];
+				if (inRange[cell] && score[cell] > bestScore) {
+					bestScore = score[cell];
+					best = cell;
+				}
+			}
+			if (best < 0) {
+				return null;
+			}
+			return here.add(best / GRID_WIDTH - GRID_RADIUS, best % GRID_WIDTH - GRID_RADIUS);
+		}
+
 		@Override
 		public boolean run() throws GameActionException {
 			// the HQ differs from normal attacks in that its range is sometimes a little longer, even more so with AOE
@@ -338,24 +720,9 @@ public class HQHandler extends BaseBuildingHandler {
 
 			RobotInfo[] nearbyEnemies = rc.senseNearbyRobots(rc.getLocation(), sensingRangeSq, rc.getTeam().opponent());
 			if (nearbyEnemies.length > 0 && rc.isWeaponReady()) {
-				MapLocation enemyLoc = null;
-				MapLocation targetLoc = null;
-
-				double minHealth = Integer.MAX_VALUE;
-				for (RobotInfo info : nearbyEnemies) {
-					if (info.health < minHealth) {
-						enemyLoc = info.location;
-						minHealth = info.health;
-
-						int distSq = rc.getLocation().distanceSquaredTo(enemyLoc);
-						if (distSq > actualRangeSq) { // this may happen if we need to use AOE
-							targetLoc = enemyLoc.add(enemyLoc.directionTo(rc.getLocation()));
-						} else {
-							targetLoc = enemyLoc;
-						}
-					}
-				}
-				if (rc.canAttackLocation(targetLoc)) {
+				MapLocation targetLoc = chooseTarget(nearbyEnemies, actualRangeSq, hasAoeBuff);
+				if (targetLoc != null && rc.canAttackLocation(targetLoc)) {
+					checkTurn();
 					rc.attackLocation(targetLoc);
 					return true;
 				}
@@ -3,6 +3,7 @@ package dronerush;
 import java.util.LinkedList;
 import java.util.List;
 
+import battlecode.common.Clock;
 import battlecode.common.Direction;
 import battlecode.common.GameActionException;
 import battlecode.common.GameConstants;
@@ -12,18 +13,41 @@ import battlecode.common.RobotInfo;
 
 public class LauncherHandler extends BaseBuildingHandler {
 
-	private int launcherIndex;
+	// -1 until we've found a free slot in the launcher list
+	private int launcherIndex = -1;
 
 	protected LauncherHandler(RobotController rc) {
 		super(rc);
 
-		try {
-			launcherIndex = BroadcastInterface.addLauncherAndGetLauncherIndex(rc, rc.getID());
-		} catch (GameActionException e) {
-			e.printStackTrace();
+		schedule(new RegisterLauncher());
+	}
+
+	private class RegisterLauncher implements Task {
+		private int nextSlot = 0;
+
+		@Override
+		public boolean work(int bytecodeLimit) throws GameActionException {
+			while (nextSlot < BroadcastInterface.LAUNCHER_SLOTS) {
+				if (Clock.getBytecodeNum() >= bytecodeLimit) {
+					return false;
+				}
+				if (BroadcastInterface.claimLauncherSlot(rc, nextSlot, rc.getID())) {
+					launcherIndex = nextSlot;
+					return true;
+				}
+				nextSlot++;
+			}
+			// the list is full. our missiles will have to find targets on their own.
+			return true;
 		}
 	}
 
+	// launchers aren't buildings, even though they share BaseBuildingHandler. they walk into enemies on purpose, so they shouldn't
+	// be calling the defenders away from our buildings.
+	@Override
+	protected void reportDistress() throws GameActionException {
+	}
+
 	@Override
 	public List<Action> chooseActions() throws GameActionException {
 
@@ -43,7 +67,7 @@ public class LauncherHandler extends BaseBuildingHandler {
 	private final Action scout = new ScoutOutward(false, false);
 	private final Action advance = new MoveTowardEnemyHq(/* avoidEnemies= */true, true);
 
-	private final class MissileAttack implements Action {
+	private final class MissileAttack extends Action {
 		private Action retreat;
 		private int originalMissileCount;
 
@@ -143,9 +167,12 @@ public class LauncherHandler extends BaseBuildingHandler {
 
 		private boolean launchMissiles(Direction enemyDir, MapLocation enemyLoc) throws GameActionException {
 			if (rc.isCoreReady()) {
-				BroadcastInterface.setLauncherTarget(rc, launcherIndex, enemyLoc);
+				if (launcherIndex >= 0) {
+					BroadcastInterface.setLauncherTarget(rc, launcherIndex, enemyLoc);
+				}
 				for (Direction curDir : Util.getDirectionsStrictlyToward(enemyDir)) {
 					if (isDirLaunchable[curDir.ordinal()]) {
+						checkTurn();
 						rc.launchMissile(curDir);
 					}
 				}
@@ -154,7 +181,9 @@ public class LauncherHandler extends BaseBuildingHandler {
 				// so stay in place
 				return true;
 			}
-			BroadcastInterface.setLauncherTarget(rc, launcherIndex, null);
+			if (launcherIndex >= 0) {
+				BroadcastInterface.setLauncherTarget(rc, launcherIndex, null);
+			}
 			return false;
 		}
 	}
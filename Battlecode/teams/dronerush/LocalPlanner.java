@@ -0,0 +1,298 @@
+package dronerush;
+
+import battlecode.common.Clock;
+import battlecode.common.Direction;
+import battlecode.common.GameActionException;
+import battlecode.common.MapLocation;
+import battlecode.common.RobotController;
+import battlecode.common.RobotInfo;
+import battlecode.common.RobotType;
+import battlecode.common.TerrainTile;
+
+/**
+ * A* over a small window around the robot, for when the shared BFS hasn't reached us yet.
+ *
+ * A search is too expensive to finish in one turn, so it's resumable: request() starts one, work() expands nodes until it runs
+ * out of bytecodes (call it from onExcessBytecodes()), and nextStep() follows the finished path. If the target is outside the
+ * window, the search stops at the first border tile it reaches, and we plan again from there. If it's inside, only the target
+ * itself ends the search.
+ *
+ * Everything is preallocated, and each search gets a new generation number, so starting a new search doesn't clear anything.
+ */
+public class LocalPlanner {
+
+	private static final int RADIUS = 5;
+	private static final int WIDTH = 2 * RADIUS + 1;
+	private static final int CELLS = WIDTH * WIDTH;
+
+	// diagonal moves take about 1.4x as long, so costs are in tenths of a straight move
+	private static final int STRAIGHT_COST = 10;
+	private static final int DIAGONAL_COST = 14;
+
+	// units closer than this are treated as obstacles
+	private static final int NEARBY_ROBOT_DIST_SQ = 8;
+
+	private static final int IDLE = 0;
+	private static final int SEARCHING = 1;
+	private static final int DONE = 2;
+	private static final int FAILED = 3;
+
+	private final RobotController rc;
+	private final BaseRobotHandler handler;
+	private final boolean canFly;
+
+	private int state = IDLE;
+	private MapLocation origin;
+	private MapLocation target;
+	private boolean isTargetInWindow;
+	private boolean avoidTowers;
+	private int generation = 0;
+
+	// per-cell search state, valid only where the stamp matches the current generation
+	private final int[] costStamp = new int[CELLS];
+	private final int[] cost = new int[CELLS];
+	private final int[] arrivalDir = new int[CELLS];
+	private final int[] closedStamp = new int[CELLS];
+	private final int[] terrainStamp = new int[CELLS];
+	private final boolean[] passable = new boolean[CELLS];
+
+	// binary heap of (f << 16) | (min(h, 255) << 8) | cell, so ties go to whichever is closer to the target
+	private final int[] heap = new int[CELLS * 8];
+	private int heapSize = 0;
+
+	// the finished path, from the origin onward
+	private final int[] path = new int[CELLS];
+	private int pathLength = 0;
+	private int pathIndex = 0;
+
+	public LocalPlanner(RobotController rc, BaseRobotHandler handler) {
+		this.rc = rc;
+		this.handler = handler;
+		this.canFly = rc.getType() == RobotType.DRONE;
+	}
+
+	public boolean isSearching() {
+		return state == SEARCHING;
+	}
+
+	// starts a search from where we are, unless we're already working on (or following) a plan to this target
+	public void request(MapLocation target, boolean avoidTowers) {
+		if (target.equals(this.target) && avoidTowers == this.avoidTowers) {
+			if (state == SEARCHING) {
+				return;
+			}
+			if (state == DONE && findOnPath(rc.getLocation()) >= 0) {
+				return;
+			}
+		}
+		this.target = target;
+		this.avoidTowers = avoidTowers;
+		origin = rc.getLocation();
+		isTargetInWindow = Math.abs(target.x - origin.x) <= RADIUS && Math.abs(target.y - origin.y) <= RADIUS;
+		generation++;
+		heapSize = 0;
+		pathLength = 0;
+		pathIndex = 0;
+
+		int start = cellIndex(origin.x, origin.y);
+		costStamp[start] = generation;
+		cost[start] = 0;
+		arrivalDir[start] = -1;
+		push(heuristic(origin.x, origin.y), start);
+		state = SEARCHING;
+	}
+
+	// the direction to take next, or null if we don't have a plan to this target from here
+	public Direction nextStep(MapLocation target) {
+		if (state != DONE || !target.equals(this.target)) {
+			return null;
+		}
+		int here = findOnPath(rc.getLocation());
+		if (here < 0 || here + 1 >= pathLength) {
+			// we wandered off, or we're at the end of the window. either way, it's time for a new plan.
+			state = IDLE;
+			return null;
+		}
+		pathIndex = here;
+		int next = path[here + 1];
+		return rc.getLocation().directionTo(new MapLocation(origin.x + next % WIDTH - RADIUS, origin.y + next / WIDTH - RADIUS));
+	}
+
+	// forget the current plan, e.g. because the next step turned out to be blocked
+	public void invalidate() {
+		state = IDLE;
+	}
+
+	public void work(int bytecodeLimit) throws GameActionException {
+		while (state == SEARCHING && Clock.getBytecodeNum() < bytecodeLimit) {
+			if (heapSize == 0) {
+				state = FAILED;
+				return;
+			}
+			int cell = pop() & 0xFF;
+			if (closedStamp[cell] == generation) {
+				// a stale duplicate. we don't decrease keys, we just push again.
+				continue;
+			}
+			closedStamp[cell] = generation;
+
+			int cx = cell % WIDTH;
+			int cy = cell / WIDTH;
+			int x = origin.x + cx - RADIUS;
+			int y = origin.y + cy - RADIUS;
+			if ((x == target.x && y == target.y)
+					|| (!isTargetInWindow && (cx == 0 || cy == 0 || cx == WIDTH - 1 || cy == WIDTH - 1))) {
+				// either we found it, or this is the most promising way out of the window toward it
+				buildPath(cell);
+				state = DONE;
+				return;
+			}
+
+			int curCost = cost[cell];
+			for (int i = 0; i < 8; i++) {
+				Direction d = Util.actualDirections[i];
+				int nx = cx + d.dx;
+				int ny = cy + d.dy;
+				if (nx < 0 || ny < 0 || nx >= WIDTH || ny >= WIDTH) {
+					continue;
+				}
+				int next = ny * WIDTH + nx;
+				if (closedStamp[next] == generation) {
+					continue;
+				}
+				int nextCost = curCost + ((i & 1) == 0 ? STRAIGHT_COST : DIAGONAL_COST);
+				if (costStamp[next] == generation && cost[next] <= nextCost) {
+					continue;
+				}
+				if (!isPassable(next, x + d.dx, y + d.dy)) {
+					continue;
+				}
+				costStamp[next] = generation;
+				cost[next] = nextCost;
+				arrivalDir[next] = i;
+				push(nextCost + heuristic(x + d.dx, y + d.dy), next);
+			}
+		}
+	}
+
+	private boolean isPassable(int cell, int x, int y) throws GameActionException {
+		if (terrainStamp[cell] == generation) {
+			return passable[cell];
+		}
+		terrainStamp[cell] = generation;
+		MapLocation loc = new MapLocation(x, y);
+		TerrainTile tile = rc.senseTerrainTile(loc);
+		// the window reaches past our sensor range, so its outer ring is unknown unless someone has seen it before. be optimistic
+		// about unknown tiles. if we're wrong, we'll find out when we get closer and plan again.
+		boolean result;
+		if (tile == TerrainTile.OFF_MAP) {
+			result = false;
+		} else if (tile == TerrainTile.VOID) {
+			result = canFly;
+		} else {
+			result = true;
+		}
+		if (result && avoidTowers && handler.inEnemyHqOrTowerRange(loc)) {
+			result = false;
+		}
+		// the target itself is often a building (like our hq), so don't rule it out
+		if (result && (x != target.x || y != target.y) && rc.canSenseLocation(loc)) {
+			RobotInfo robot = rc.senseRobotAtLocation(loc);
+			// buildings never move. units might, but the ones right next to us probably won't have by the time we get there.
+			if (robot != null && (robot.type.isBuilding || origin.distanceSquaredTo(loc) <= NEARBY_ROBOT_DIST_SQ)) {
+				result = false;
+			}
+		}
+		return passable[cell] = result;
+	}
+
+	// octile distance, which never overestimates with our move costs
+	private int heuristic(int x, int y) {
+		int dx = Math.abs(target.x - x);
+		int dy = Math.abs(target.y - y);
+		if (dx > dy) {
+			return STRAIGHT_COST * dx + (DIAGONAL_COST - STRAIGHT_COST) * dy;
+		}
+		return STRAIGHT_COST * dy + (DIAGONAL_COST - STRAIGHT_COST) * dx;
+	}
+
+	private void buildPath(int goal) {
+		// walk back to the origin, then flip it around
+		int length = 0;
+		int cell = goal;
+		while (arrivalDir[cell] >= 0) {
+			path[length++] = cell;
+			Direction d = Util.actualDirections[arrivalDir[cell]];
+			cell -= d.dy * WIDTH + d.dx;
+		}
+		path[length++] = cell;
+		for (int i = 0, j = length - 1; i < j; i++, j--) {
+			int tmp = path[i];
+			path[i] = path[j];
+			path[j] = tmp;
+		}
+		pathLength = length;
+		pathIndex = 0;
+	}
+
+	private int findOnPath(MapLocation loc) {
+		int dx = loc.x - origin.x + RADIUS;
+		int dy = loc.y - origin.y + RADIUS;
+		if (dx < 0 || dy < 0 || dx >= WIDTH || dy >= WIDTH) {
+			return -1;
+		}
+		int cell = dy * WIDTH + dx;
+		// we usually only advance by one step per turn, so start looking where we were last time
+		for (int i = pathIndex; i < pathLength; i++) {
+			if (path[i] == cell) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private int cellIndex(int x, int y) {
+		return (y - origin.y + RADIUS) * WIDTH + (x - origin.x + RADIUS);
+	}
+
+	private void push(int f, int cell) {
+		if (heapSize >= heap.length) {
+			// only possible with a lot of duplicates. dropping one just makes the path a little worse.
+			return;
+		}
+		int h = f - cost[cell];
+		int entry = (f << 16) | (Math.min(h, 0xFF) << 8) | cell;
+		int i = heapSize++;
+		while (i > 0) {
+			int parent = (i - 1) >> 1;
+			if (heap[parent] <= entry) {
+				break;
+			}
+			heap[i] = heap[parent];
+			i = parent;
+		}
+		heap[i] = entry;
+	}
+
+	private int pop() {
+		int result = heap[0];
+		int last = heap[--heapSize];
+		int i = 0;
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= heapSize) {
+				break;
+			}
+			if (child + 1 < heapSize && heap[child + 1] < heap[child]) {
+				child++;
+			}
+			if (heap[child] >= last) {
+				break;
+			}
+			heap[i] = heap[child];
+			i = child;
+		}
+		heap[i] = last;
+		return result;
+	}
+}
@@ -3,6 +3,7 @@ package dronerush;
 import java.util.LinkedList;
 import java.util.List;
 
+import battlecode.common.Clock;
 import battlecode.common.GameActionException;
 import battlecode.common.RobotController;
 import battlecode.common.RobotType;
@@ -13,19 +14,25 @@ public class MinerFactoryHandler extends BaseBuildingHandler {
 		super(rc);
 	}
 
-	// TODO
-	// I just made the numbers up.
-	// We should do some kind of map-based testing to figure out what are actually good values
-	private final int MINIMUM_MINER_COUNT = 10;
-	private final int MAXIMUM_MINER_COUNT = 30;
-	private final double BUILD_MINER_MINIMUM_FEEDBACK_RATIO = 0.3;
+	// the baseline number of miners comes from the economy simulator (see EconomyTable). the feedback system can add more on
+	// top of that if the miners we have keep finding lots of ore, until it's too late for them to pay for themselves. these
+	// started out as made-up numbers. the parameter tuner can search for better ones.
+	private final int MAXIMUM_MINER_COUNT = Parameters.MAXIMUM_MINER_COUNT;
+	private final double BUILD_MINER_MINIMUM_FEEDBACK_RATIO = Parameters.BUILD_MINER_MINIMUM_FEEDBACK_RATIO;
+
+	private int oreProfile = -1;
 
 	private boolean shouldBuildMoreMiners() throws GameActionException {
+		if (oreProfile < 0) {
+			// the hq decides this on its first turn, long before there's a miner factory
+			oreProfile = BroadcastInterface.getOreProfile(rc);
+		}
 		int curMinerCount = BroadcastInterface.getRobotCount(rc, RobotType.MINER, true);
-		if (curMinerCount < MINIMUM_MINER_COUNT) {
+		// the target stays in force all game, so miners we lose get replaced
+		if (curMinerCount < EconomyTable.minerTarget(oreProfile)) {
 			return true;
 		}
-		if (curMinerCount >= MAXIMUM_MINER_COUNT) {
+		if (curMinerCount >= MAXIMUM_MINER_COUNT || EconomyTable.isMinerGrowthOver(oreProfile, Clock.getRoundNum())) {
 			return false;
 		}
 
@@ -50,7 +50,10 @@ public class MissileHandler extends BaseRobotHandler {
 					} else {
 						if (motherLauncherIndex == -1) {
 							motherLauncherIndex = BroadcastInterface.getLauncherIndex(rc, motherId);
-							target = BroadcastInterface.findLauncherTarget(rc, motherLauncherIndex);
+							// she might not have found a slot in the launcher list yet
+							if (motherLauncherIndex >= 0) {
+								target = BroadcastInterface.findLauncherTarget(rc, motherLauncherIndex);
+							}
 						}
 
 						// we found our mother, but she doesn't want us to kill anything :(
@@ -0,0 +1,45 @@
+package dronerush;
+
+/**
+ * All the numbers we made up, in one place.
+ *
+ * These are plain constants, so they're free at runtime. The tuner (tools/bctools/ParameterTuner) rewrites this file when it builds
+ * candidate teams, and "ant -Dparams=file apply-parameters" rewrites it with a tuned set. The comment after each tunable value is
+ * the range the tuner is allowed to search, so keep the "tune min max" format if you edit it by hand.
+ */
+public class Parameters {
+
+	// drone rush strategy
+	public static final int DRONE_RUSH_MAX_NUMBER_OF_BASHERS = 10; // tune 0 30
+	public static final double DRONE_RUSH_TANKS_PER_LAUNCHER = 1.5; // tune 0.25 5.0
+	public static final int DRONE_RUSH_MAX_DRONES = 9; // tune 0 20
+	public static final int DRONE_RUSH_TANKS_NEEDED_TO_ATTACK = 10; // tune 2 30
+	public static final int DRONE_RUSH_BASHERS_NEEDED_TO_ATTACK = 10; // tune 0 30
+	public static final int DRONE_RUSH_LAUNCHERS_NEEDED_TO_ATTACK = 5; // tune 0 20
+	public static final int DRONE_RUSH_TANKS_NEEDED_TO_RETREAT = 3; // tune 0 15
+	public static final int DRONE_RUSH_BASHERS_NEEDED_TO_RETREAT = 2; // tune 0 15
+	public static final int DRONE_RUSH_LAUNCHERS_NEEDED_TO_RETREAT = 2; // tune 0 10
+
+	// soldier mass strategy
+	public static final double SOLDIER_MASS_TANKS_PER_LAUNCHER = 1.5; // tune 0.25 5.0
+	public static final double SOLDIER_MASS_SOLDIERS_PER_TANK = 2.5; // tune 0.5 6.0
+	public static final int SOLDIER_MASS_MAX_DRONES = 6; // tune 0 20
+	public static final int SOLDIER_MASS_TANKS_NEEDED_TO_ATTACK = 10; // tune 2 30
+	public static final int SOLDIER_MASS_SOLDIERS_NEEDED_TO_ATTACK = 20; // tune 2 50
+	public static final int SOLDIER_MASS_LAUNCHERS_NEEDED_TO_ATTACK = 5; // tune 0 20
+	public static final int SOLDIER_MASS_TANKS_NEEDED_TO_RETREAT = 5; // tune 0 15
+	public static final int SOLDIER_MASS_SOLDIERS_NEEDED_TO_RETREAT = 3; // tune 0 20
+	public static final int SOLDIER_MASS_LAUNCHERS_NEEDED_TO_RETREAT = 2; // tune 0 10
+
+	// sieging: how much combat value (see BaseRobotHandler.combatValue()) has to be at the staging point before we move into
+	// tower range, how little it takes to fall back, and how soon (in rounds) a unit has to be arriving to count as backup
+	public static final int RALLY_VALUE_TO_ADVANCE = 150; // tune 30 600
+	public static final int RALLY_VALUE_TO_FALL_BACK = 70; // tune 0 300
+	public static final int RALLY_ETA_WINDOW = 10; // tune 0 40
+
+	// economy
+	public static final int MAXIMUM_MINER_COUNT = 30; // tune 10 60
+	public static final double BUILD_MINER_MINIMUM_FEEDBACK_RATIO = 0.3; // tune 0.05 0.9
+	public static final double MIN_ORE_PER_TURN_THRESHOLD = 0.2; // tune 0.0 2.0
+	public static final double MIN_ADJ_ORE_PER_TURN_TO_REPORT_ABUNDANT_THRESHOLD = 0.5; // tune 0.1 2.5
+}
@@ -0,0 +1,14 @@
+package dronerush;
+
+/**
+ * Thrown when a robot is about to act on decisions made in an earlier round (see BaseRobotHandler.checkTurn()). The run loop
+ * catches it and starts the turn over, since by then it's already our next turn.
+ */
+public class StaleTurnException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public StaleTurnException(int turnRound, int currentRound) {
+		super("turn started in round " + turnRound + " but it's round " + currentRound + " now");
+	}
+}
@@ -1,5 +1,6 @@
 package dronerush;
 
+import battlecode.common.Clock;
 import battlecode.common.GameActionException;
 import battlecode.common.RobotController;
 import battlecode.common.RobotType;
@@ -20,8 +21,9 @@ public abstract class Strategy {
 		this.rc = rc;
 	}
 
-	private static final int DRONE_RUSH_VALUE = 0;
-	private static final int SOLDIER_MASS_VALUE = 1;
+	// these are also saved in team memory, so don't renumber them
+	static final int DRONE_RUSH_VALUE = 0;
+	static final int SOLDIER_MASS_VALUE = 1;
 
 	public static Strategy getStrategy(RobotController rc) throws GameActionException {
 		switch (BroadcastInterface.getStrategyValue(rc)) {
@@ -55,7 +57,53 @@ public abstract class Strategy {
 
 	public abstract boolean shouldAggroWithDrones() throws GameActionException;
 
-	public abstract RobotType getBeaverBuildOrder() throws GameActionException;
+	// the opening comes from the build order planner (see BuildOrders). beavers share a cursor into it, so working out what to
+	// build next is one read instead of counting every kind of building.
+	public RobotType getBeaverBuildOrder() throws GameActionException {
+		RobotType[] opening = getOpening();
+		int cursor = BroadcastInterface.getBuildCursor(rc);
+		if (cursor < opening.length) {
+			return opening[cursor];
+		}
+		return getLateBuildOrder();
+	}
+
+	// beavers call this when they start a building, so the next beaver builds the next thing. if the hq rewound the cursor to
+	// rebuild something that died, that was the only thing missing, so jump back to where we were.
+	public void onBuildingStarted(RobotType type) throws GameActionException {
+		RobotType[] opening = getOpening();
+		int cursor = BroadcastInterface.getBuildCursor(rc);
+		if (cursor < opening.length && opening[cursor] == type) {
+			int resume = BroadcastInterface.getBuildResumeCursor(rc);
+			BroadcastInterface.setBuildCursor(rc, Math.max(cursor + 1, resume));
+		}
+	}
+
+	// buildings die. returns the index of the first building in the opening that we've already built, but don't have anymore,
+	// or -1 if we have everything we should.
+	public int findMissingOpeningBuilding() throws GameActionException {
+		RobotType[] opening = getOpening();
+		int cursor = Math.min(BroadcastInterface.getBuildCursor(rc), opening.length);
+		int[] needed = new int[RobotType.values().length];
+		for (int i = 0; i < cursor; i++) {
+			int ordinal = opening[i].ordinal();
+			needed[ordinal]++;
+			if (BroadcastInterface.getRobotCount(rc, opening[i], true) < needed[ordinal]) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	protected abstract RobotType[] getOpening();
+
+	// what to build once the opening is done
+	protected abstract RobotType getLateBuildOrder() throws GameActionException;
+
+	// usually one, but on rich maps the economy simulator may want a second one later (see EconomyTable)
+	protected int minerFactoriesWanted() throws GameActionException {
+		return EconomyTable.minerFactoriesWanted(BroadcastInterface.getOreProfile(rc), Clock.getRoundNum());
+	}
 
 	public abstract boolean shouldAttack() throws GameActionException;
 
@@ -66,8 +114,8 @@ public abstract class Strategy {
 			super(rc);
 		}
 
-		private static final int MAX_NUMBER_OF_BASHERS = 10;
-		private static final double TANKS_PER_LAUNCHER = 1.5;
+		private static final int MAX_NUMBER_OF_BASHERS = Parameters.DRONE_RUSH_MAX_NUMBER_OF_BASHERS;
+		private static final double TANKS_PER_LAUNCHER = Parameters.DRONE_RUSH_TANKS_PER_LAUNCHER;
 
 		public boolean shouldMakeTanks() throws GameActionException {
 			int tankCount = BroadcastInterface.getRobotCount(rc, RobotType.TANK, true);
@@ -98,36 +146,16 @@ public abstract class Strategy {
 		}
 
 		@Override
-		public RobotType getBeaverBuildOrder() throws GameActionException {
+		protected RobotType[] getOpening() {
+			return BuildOrders.DRONE_RUSH_OPENING;
+		}
+
+		@Override
+		protected RobotType getLateBuildOrder() throws GameActionException {
 			int numMinerFactories = BroadcastInterface.getRobotCount(rc, RobotType.MINERFACTORY, true);
-			if (numMinerFactories < 1) {
+			if (numMinerFactories < minerFactoriesWanted()) {
 				return RobotType.MINERFACTORY;
 			}
-			int numHelipads = BroadcastInterface.getRobotCount(rc, RobotType.HELIPAD, true);
-			if (numHelipads < 1) {
-				return RobotType.HELIPAD;
-			}
-			int numTechnologyInstitutes = BroadcastInterface.getRobotCount(rc, RobotType.TECHNOLOGYINSTITUTE, true);
-			if (numTechnologyInstitutes < 1) {
-				return RobotType.TECHNOLOGYINSTITUTE;
-			}
-			int numTrainingFields = BroadcastInterface.getRobotCount(rc, RobotType.TRAININGFIELD, true);
-			if (numTrainingFields < 1) {
-				return RobotType.TRAININGFIELD;
-			}
-			int numBarracks = BroadcastInterface.getRobotCount(rc, RobotType.BARRACKS, true);
-			if (numBarracks < 1) {
-				return RobotType.BARRACKS;
-			}
-			int numTankFactories = BroadcastInterface.getRobotCount(rc, RobotType.TANKFACTORY, true);
-			if (numTankFactories < 1) {
-				return RobotType.TANKFACTORY;
-			}
-			int numAerospacelabs = BroadcastInterface.getRobotCount(rc, RobotType.AEROSPACELAB, true);
-			if (numAerospacelabs < 1) {
-				return RobotType.AEROSPACELAB;
-			}
-
 			if (shouldMakeTanks()) {
 				return RobotType.TANKFACTORY;
 			} else {
@@ -137,7 +165,7 @@ public abstract class Strategy {
 
 		@Override
 		public boolean shouldMakeDrones() throws GameActionException {
-			return BroadcastInterface.getRobotCount(rc, RobotType.DRONE, true) < 9;
+			return BroadcastInterface.getRobotCount(rc, RobotType.DRONE, true) < Parameters.DRONE_RUSH_MAX_DRONES;
 		}
 
 		@Override
@@ -145,12 +173,12 @@ public abstract class Strategy {
 			return true;
 		}
 
-		private final int TANKS_NEEDED_TO_ATTACK = 10;
-		private final int BASHERS_NEEDED_TO_ATTACK = 10;
-		private final int LAUNCHERS_NEEDED_TO_ATTACK = 5;
-		private final int TANKS_NEEDED_TO_RETREAT = 3;
-		private final int BASHERS_NEEDED_TO_RETREAT = 2;
-		private final int LAUNCHERS_NEEDED_TO_RETREAT = 2;
+		private final int TANKS_NEEDED_TO_ATTACK = Parameters.DRONE_RUSH_TANKS_NEEDED_TO_ATTACK;
+		private final int BASHERS_NEEDED_TO_ATTACK = Parameters.DRONE_RUSH_BASHERS_NEEDED_TO_ATTACK;
+		private final int LAUNCHERS_NEEDED_TO_ATTACK = Parameters.DRONE_RUSH_LAUNCHERS_NEEDED_TO_ATTACK;
+		private final int TANKS_NEEDED_TO_RETREAT = Parameters.DRONE_RUSH_TANKS_NEEDED_TO_RETREAT;
+		private final int BASHERS_NEEDED_TO_RETREAT = Parameters.DRONE_RUSH_BASHERS_NEEDED_TO_RETREAT;
+		private final int LAUNCHERS_NEEDED_TO_RETREAT = Parameters.DRONE_RUSH_LAUNCHERS_NEEDED_TO_RETREAT;
 
 		@Override
 		public boolean shouldAttack() throws GameActionException {
@@ -172,8 +200,8 @@ public abstract class Strategy {
 	}
 
 	public static class SoldierMass extends Strategy {
-		private static final double TANKS_PER_LAUNCHER = 1.5;
-		private static final double SOLDIERS_PER_TANK = 2.5;
+		private static final double TANKS_PER_LAUNCHER = Parameters.SOLDIER_MASS_TANKS_PER_LAUNCHER;
+		private static final double SOLDIERS_PER_TANK = Parameters.SOLDIER_MASS_SOLDIERS_PER_TANK;
 
 		public SoldierMass(RobotController rc) {
 			super(rc);
@@ -210,36 +238,16 @@ public abstract class Strategy {
 		}
 
 		@Override
-		public RobotType getBeaverBuildOrder() throws GameActionException {
+		protected RobotType[] getOpening() {
+			return BuildOrders.SOLDIER_MASS_OPENING;
+		}
+
+		@Override
+		protected RobotType getLateBuildOrder() throws GameActionException {
 			int numMinerFactories = BroadcastInterface.getRobotCount(rc, RobotType.MINERFACTORY, true);
-			if (numMinerFactories < 1) {
+			if (numMinerFactories < minerFactoriesWanted()) {
 				return RobotType.MINERFACTORY;
 			}
-			int numBarracks = BroadcastInterface.getRobotCount(rc, RobotType.BARRACKS, true);
-			if (numBarracks < 1) {
-				return RobotType.BARRACKS;
-			}
-			int numTankFactories = BroadcastInterface.getRobotCount(rc, RobotType.TANKFACTORY, true);
-			if (numTankFactories < 1) {
-				return RobotType.TANKFACTORY;
-			}
-			int numHelipads = BroadcastInterface.getRobotCount(rc, RobotType.HELIPAD, true);
-			if (numHelipads < 1) {
-				return RobotType.HELIPAD;
-			}
-			int numAerospacelabs = BroadcastInterface.getRobotCount(rc, RobotType.AEROSPACELAB, true);
-			if (numAerospacelabs < 1) {
-				return RobotType.AEROSPACELAB;
-			}
-			int numTechnologyInstitutes = BroadcastInterface.getRobotCount(rc, RobotType.TECHNOLOGYINSTITUTE, true);
-			if (numTechnologyInstitutes < 1) {
-				return RobotType.TECHNOLOGYINSTITUTE;
-			}
-			int numTrainingFields = BroadcastInterface.getRobotCount(rc, RobotType.TRAININGFIELD, true);
-			if (numTrainingFields < 1) {
-				return RobotType.TRAININGFIELD;
-			}
-
 			if (shouldMakeTanks()) {
 				return RobotType.TANKFACTORY;
 			} else if (shouldMakeSoldiers()) {
@@ -251,7 +259,7 @@ public abstract class Strategy {
 
 		@Override
 		public boolean shouldMakeDrones() throws GameActionException {
-			return BroadcastInterface.getRobotCount(rc, RobotType.DRONE, true) < 6;
+			return BroadcastInterface.getRobotCount(rc, RobotType.DRONE, true) < Parameters.SOLDIER_MASS_MAX_DRONES;
 		}
 
 		@Override
@@ -259,12 +267,12 @@ public abstract class Strategy {
 			return false;
 		}
 
-		private final int TANKS_NEEDED_TO_ATTACK = 10;
-		private final int SOLDIERS_NEEDED_TO_ATTACK = 20;
-		private final int LAUNCHERS_NEEDED_TO_ATTACK = 5;
-		private final int TANKS_NEEDED_TO_RETREAT = 5;
-		private final int SOLDIERS_NEEDED_TO_RETREAT = 3;
-		private final int LAUNCHERS_NEEDED_TO_RETREAT = 2;
+		private final int TANKS_NEEDED_TO_ATTACK = Parameters.SOLDIER_MASS_TANKS_NEEDED_TO_ATTACK;
+		private final int SOLDIERS_NEEDED_TO_ATTACK = Parameters.SOLDIER_MASS_SOLDIERS_NEEDED_TO_ATTACK;
+		private final int LAUNCHERS_NEEDED_TO_ATTACK = Parameters.SOLDIER_MASS_LAUNCHERS_NEEDED_TO_ATTACK;
+		private final int TANKS_NEEDED_TO_RETREAT = Parameters.SOLDIER_MASS_TANKS_NEEDED_TO_RETREAT;
+		private final int SOLDIERS_NEEDED_TO_RETREAT = Parameters.SOLDIER_MASS_SOLDIERS_NEEDED_TO_RETREAT;
+		private final int LAUNCHERS_NEEDED_TO_RETREAT = Parameters.SOLDIER_MASS_LAUNCHERS_NEEDED_TO_RETREAT;
 
 		@Override
 		public boolean shouldAttack() throws GameActionException {
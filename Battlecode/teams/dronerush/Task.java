@@ -0,0 +1,20 @@
+package dronerush;
+
+import battlecode.common.GameActionException;
+
+/**
+ * A computation that's too big to do in one turn, like planning the siege or sampling all the ore around the hq. Tasks are
+ * resumable: BaseRobotHandler runs queued tasks from onExcessBytecodes(), and a task keeps its progress in its own fields,
+ * checks the clock between small steps, and picks up where it left off next turn.
+ * 
+ */
+public interface Task {
+	/**
+	 * Does as much of the work as fits before the bytecode limit. Each step between checks of the clock should be small, so a
+	 * task never runs us into the next round.
+	 * 
+	 * @return true if the task is finished and can be dropped
+	 */
+	public abstract boolean work(int bytecodeLimit) throws GameActionException;
+
+}
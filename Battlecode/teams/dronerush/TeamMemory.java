@@ -0,0 +1,162 @@
+package dronerush;
+
+import battlecode.common.GameActionException;
+import battlecode.common.GameConstants;
+import battlecode.common.RobotController;
+import battlecode.common.RobotType;
+
+public class TeamMemory {
+
+	// team memory is an array of GameConstants.TEAM_MEMORY_LENGTH longs that carries over from one game to the next in a series.
+	// reading and writing it costs 0 bytecodes, so the HQ just keeps it up to date every few rounds. whatever was written last is
+	// what the next game sees, so the "how is the game going" slot doubles as the final result.
+	// like the broadcast channels, keep track of who's using what here:
+	// 0: version tag (so we don't misread memory from some other bot), plus the running win/loss record of each strategy
+	// 1: status as of the last round we recorded: strategy, round, whether that was the round limit, tower counts, hq health
+	// 2: peak number of each enemy unit type we counted at once, 8 bits each (see trackedEnemyTypes)
+	// 3: rounds at which our towers fell, 12 bits each, up to 5 towers
+	// 4: rounds at which their towers fell, 12 bits each, up to 5 towers
+
+	private static final int headerIndex = 0;
+	private static final int statusIndex = 1;
+	private static final int enemyPeaksIndex = 2;
+	private static final int ourTowerLossIndex = 3;
+	private static final int enemyTowerLossIndex = 4;
+
+	private static final long VERSION_TAG = 0x379L;
+	private static final int MAX_TOWER_LOSSES = 5;
+
+	// the enemy units we care about when picking a strategy. 8 of them fit in one long.
+	public static final RobotType[] trackedEnemyTypes = { RobotType.SOLDIER, RobotType.BASHER, RobotType.DRONE, RobotType.TANK,
+			RobotType.LAUNCHER, RobotType.COMMANDER, RobotType.MINER, RobotType.BEAVER };
+
+	// if they had this many drones out at once last game, they're a drone team, and soldiers are the answer
+	private static final int DRONE_HEAVY_OPPONENT_THRESHOLD = 10;
+	// don't give up on drone rushing after one bad game
+	private static final int DRONE_RUSH_LOSSES_TO_GIVE_UP = 2;
+
+	public static final int NO_PREFERENCE = -1;
+
+	private static boolean isValid(long[] memory) {
+		return memory != null && memory.length == GameConstants.TEAM_MEMORY_LENGTH && (memory[headerIndex] & 0xFFFF) == VERSION_TAG;
+	}
+
+	// header layout: bits 0-15 version, then 8 bits each for drone rush wins, drone rush losses, soldier mass wins, soldier mass
+	// losses
+	private static int getRecordField(long header, int field) {
+		return (int) ((header >>> (16 + 8 * field)) & 0xFF);
+	}
+
+	private static long setRecordField(long header, int field, int value) {
+		int shift = 16 + 8 * field;
+		return (header & ~(0xFFL << shift)) | ((long) Math.min(value, 0xFF) << shift);
+	}
+
+	private static int winsField(int strategyValue) {
+		return 2 * strategyValue;
+	}
+
+	private static int lossesField(int strategyValue) {
+		return 2 * strategyValue + 1;
+	}
+
+	// status layout: bits 0-7 strategy, 8-19 round, 20 whether we hit the round limit, 21-23 our towers, 24-26 their towers,
+	// 27-33 our hq health as a percentage
+	private static int getStrategyOfStatus(long status) {
+		return (int) (status & 0xFF);
+	}
+
+	// returns 1 if we (probably) won the last game, -1 if we (probably) lost, and 0 if we can't tell
+	private static int inferOutcome(long status) {
+		boolean reachedRoundLimit = ((status >>> 20) & 0x1) == 1;
+		int ourTowers = (int) ((status >>> 21) & 0x7);
+		int theirTowers = (int) ((status >>> 24) & 0x7);
+		int hqHealthPercent = (int) ((status >>> 27) & 0x7F);
+		if (reachedRoundLimit) {
+			// the first tiebreaker is tower count
+			if (ourTowers == theirTowers) {
+				return 0;
+			}
+			return ourTowers > theirTowers ? 1 : -1;
+		}
+		// the game ended early, so somebody's hq died. if it was looking bad for ours, it was probably ours.
+		return hqHealthPercent < 25 ? -1 : 1;
+	}
+
+	// folds the result of the previous game into the running record, and writes it to this game's memory.
+	// returns the strategy the record suggests, or NO_PREFERENCE.
+	public static int carryOverRecord(RobotController rc) {
+		long[] memory = rc.getTeamMemory();
+		long header = VERSION_TAG;
+		long enemyPeaks = 0;
+		if (isValid(memory)) {
+			header = memory[headerIndex];
+			enemyPeaks = memory[enemyPeaksIndex];
+			long status = memory[statusIndex];
+			int outcome = inferOutcome(status);
+			int strategyValue = getStrategyOfStatus(status);
+			if (outcome > 0) {
+				header = setRecordField(header, winsField(strategyValue), getRecordField(header, winsField(strategyValue)) + 1);
+			} else if (outcome < 0) {
+				header = setRecordField(header, lossesField(strategyValue), getRecordField(header, lossesField(strategyValue)) + 1);
+			}
+		}
+		rc.setTeamMemory(headerIndex, header);
+		// everything else describes a single game, so start it fresh
+		rc.setTeamMemory(statusIndex, 0);
+		rc.setTeamMemory(enemyPeaksIndex, 0);
+		rc.setTeamMemory(ourTowerLossIndex, 0);
+		rc.setTeamMemory(enemyTowerLossIndex, 0);
+
+		// drones are index 2 in trackedEnemyTypes
+		int enemyDronePeak = (int) ((enemyPeaks >>> (8 * 2)) & 0xFF);
+		if (enemyDronePeak >= DRONE_HEAVY_OPPONENT_THRESHOLD) {
+			return Strategy.SOLDIER_MASS_VALUE;
+		}
+		int droneRushWins = getRecordField(header, winsField(Strategy.DRONE_RUSH_VALUE));
+		int droneRushLosses = getRecordField(header, lossesField(Strategy.DRONE_RUSH_VALUE));
+		int soldierMassWins = getRecordField(header, winsField(Strategy.SOLDIER_MASS_VALUE));
+		int soldierMassLosses = getRecordField(header, lossesField(Strategy.SOLDIER_MASS_VALUE));
+		if (droneRushLosses >= DRONE_RUSH_LOSSES_TO_GIVE_UP && droneRushLosses > droneRushWins
+				&& soldierMassLosses <= soldierMassWins) {
+			return Strategy.SOLDIER_MASS_VALUE;
+		}
+		return NO_PREFERENCE;
+	}
+
+	public static void recordStatus(RobotController rc, int strategyValue, int roundNum, boolean reachedRoundLimit, int ourTowers,
+			int theirTowers, int hqHealthPercent) {
+		long status = strategyValue & 0xFF;
+		status |= (long) (roundNum & 0xFFF) << 8;
+		status |= (reachedRoundLimit ? 1L : 0L) << 20;
+		status |= (long) (ourTowers & 0x7) << 21;
+		status |= (long) (theirTowers & 0x7) << 24;
+		status |= (long) (hqHealthPercent & 0x7F) << 27;
+		rc.setTeamMemory(statusIndex, status);
+	}
+
+	// returns the updated peaks, so the caller can hang on to them instead of reading them back
+	public static long recordEnemyPeaks(RobotController rc, long peaks) throws GameActionException {
+		long newPeaks = peaks;
+		for (int i = 0; i < trackedEnemyTypes.length; i++) {
+			int count = Math.min(0xFF, BroadcastInterface.getRobotCount(rc, trackedEnemyTypes[i], false));
+			int shift = 8 * i;
+			if (count > ((newPeaks >>> shift) & 0xFF)) {
+				newPeaks = (newPeaks & ~(0xFFL << shift)) | ((long) count << shift);
+			}
+		}
+		if (newPeaks != peaks) {
+			rc.setTeamMemory(enemyPeaksIndex, newPeaks);
+		}
+		return newPeaks;
+	}
+
+	// lossIndex is how many towers that team had lost before this one
+	public static void recordTowerLoss(RobotController rc, boolean isOurTower, int lossIndex, int roundNum) {
+		if (lossIndex < 0 || lossIndex >= MAX_TOWER_LOSSES) {
+			return;
+		}
+		int shift = 12 * lossIndex;
+		rc.setTeamMemory(isOurTower ? ourTowerLossIndex : enemyTowerLossIndex, (long) (roundNum & 0xFFF) << shift, 0xFFFL << shift);
+	}
+}
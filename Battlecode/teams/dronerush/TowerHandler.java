@@ -5,7 +5,6 @@ import java.util.List;
 
 import battlecode.common.GameActionException;
 import battlecode.common.RobotController;
-import battlecode.common.RobotInfo;
 
 public class TowerHandler extends BaseBuildingHandler {
 
@@ -20,21 +19,5 @@ public class TowerHandler extends BaseBuildingHandler {
 		return result;
 	}
 
-	private final Action attack = new TowerAttack();
-
-	// same as normal Attack, but also has a hook to detect if towers are in peril
-	private class TowerAttack extends Attack {
-		@Override
-		public RobotInfo[] senseNearbyEnemies() throws GameActionException {
-			RobotInfo[] result =super.senseNearbyEnemies();
-			int numEnemies = result.length;
-			if(numEnemies > 0){
-				int prevTowerInPerilCount = BroadcastInterface.getNumEnemiesNearTowerInPeril(rc);
-				if(numEnemies > prevTowerInPerilCount){
-					BroadcastInterface.reportTowerInPeril(rc, numEnemies, rc.getLocation());
-				}
-			}
-			return result;
-		}
-	}
+	private final Action attack = new Attack();
 }
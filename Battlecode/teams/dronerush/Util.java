@@ -282,8 +282,8 @@ public class Util {
 		double mx = midpoint[0];
 		double my = midpoint[1];
 
-		boolean cond1 = (ourHq.x + theirHq.x - 2 * mx) < Util.F_EPSILON;
-		boolean cond2 = (ourHq.y + theirHq.y - 2 * my) < Util.F_EPSILON;
+		boolean cond1 = Math.abs(ourHq.x + theirHq.x - 2 * mx) < Util.F_EPSILON;
+		boolean cond2 = Math.abs(ourHq.y + theirHq.y - 2 * my) < Util.F_EPSILON;
 		if (!(cond1 && cond2)) {
 			return false;
 		}
@@ -292,8 +292,8 @@ public class Util {
 			boolean rotationFound = false;
 			for (MapLocation enemyTower : theirTowers) {
 				// written on separate lines for clarity
-				cond1 = (ourTower.x + enemyTower.x - 2 * mx) < Util.F_EPSILON;
-				cond2 = (ourTower.y + enemyTower.y - 2 * my) < Util.F_EPSILON;
+				cond1 = Math.abs(ourTower.x + enemyTower.x - 2 * mx) < Util.F_EPSILON;
+				cond2 = Math.abs(ourTower.y + enemyTower.y - 2 * my) < Util.F_EPSILON;
 				if (cond1 && cond2) {
 					rotationFound = true;
 					break;
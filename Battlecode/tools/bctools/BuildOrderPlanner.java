@@ -0,0 +1,292 @@
+package bctools;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import battlecode.common.RobotType;
+import dronerush.BaseRobotHandler;
+import dronerush.EconomyTable;
+
+/**
+ * Plans the order beavers put up our buildings in, instead of picking it by hand.
+ *
+ * Each strategy has a set of buildings it wants, and a weight for each one saying how much it hurts to get it late (drone rush
+ * really wants its helipad, soldier mass really wants its barracks). The planner searches for the order that minimizes the
+ * weighted sum of completion times. It models two beavers, the dependencies between buildings (RobotType.dependency), ore costs
+ * and build times, and our income, including the miners the miner factory makes once it's up (using EconomyTable's target for
+ * a middling map, like the rest of the team does before the hq has looked).
+ *
+ * It's a beam search: placing one building at a time, keep only the best few partial orders, scored by the completion times so
+ * far plus a lower bound on the rest.
+ *
+ * The result is written as BuildOrders.java in the team, which beavers follow with a shared cursor.
+ *
+ * Usage: java bctools.BuildOrderPlanner outputFile [beamWidth]
+ */
+public class BuildOrderPlanner {
+
+	private static final int NUM_BEAVERS = 2;
+	// when we'd still be waiting for ore at this point, the order is hopeless anyway
+	private static final int MAX_ROUND = 3000;
+	// the same profile BroadcastInterface.getOreProfile() assumes before the hq has looked
+	private static final int ORE_PROFILE = 2;
+
+	public static class Goal {
+		public final String name;
+		public final RobotType[] buildings;
+		public final int[] weights;
+
+		public Goal(String name, RobotType[] buildings, int[] weights) {
+			this.name = name;
+			this.buildings = buildings;
+			this.weights = weights;
+		}
+	}
+
+	// these are the same buildings the old hand-written orders built, so only the order changes
+	private static final Goal[] GOALS = {
+			new Goal("DRONE_RUSH", new RobotType[] { RobotType.MINERFACTORY, RobotType.HELIPAD, RobotType.TECHNOLOGYINSTITUTE,
+					RobotType.TRAININGFIELD, RobotType.BARRACKS, RobotType.TANKFACTORY, RobotType.AEROSPACELAB }, new int[] { 4, 4,
+					1, 1, 1, 2, 2 }),
+			new Goal("SOLDIER_MASS", new RobotType[] { RobotType.MINERFACTORY, RobotType.BARRACKS, RobotType.TANKFACTORY,
+					RobotType.HELIPAD, RobotType.AEROSPACELAB, RobotType.TECHNOLOGYINSTITUTE, RobotType.TRAININGFIELD }, new int[] {
+					4, 4, 3, 1, 2, 1, 1 }) };
+
+	private final Goal goal;
+	private final double minerIncome;
+	private final int minerTarget;
+
+	public BuildOrderPlanner(Goal goal) {
+		this.goal = goal;
+		double density = EconomySimulator.PROFILE_DENSITIES[ORE_PROFILE];
+		this.minerIncome = BaseRobotHandler.miningRate(density, false) / EconomySimulator.MINING_DELAY;
+		this.minerTarget = EconomyTable.MINER_TARGET[ORE_PROFILE];
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("usage: BuildOrderPlanner outputFile [beamWidth]");
+			System.exit(1);
+		}
+		File output = new File(args[0]);
+		int beamWidth = args.length >= 2 ? Integer.parseInt(args[1]) : 64;
+
+		List<RobotType[]> openings = new ArrayList<RobotType[]>();
+		for (Goal goal : GOALS) {
+			State best = new BuildOrderPlanner(goal).search(beamWidth);
+			RobotType[] opening = best.getOrder(goal);
+			openings.add(opening);
+			StringBuilder description = new StringBuilder(goal.name + ":");
+			for (int i = 0; i < opening.length; i++) {
+				description.append(" " + opening[i] + "@" + best.finishedAt[best.order[i]]);
+			}
+			System.out.println(description + ", cost " + best.cost);
+		}
+		writeTable(output, beamWidth, openings);
+		System.out.println("wrote " + output);
+	}
+
+	// a partial build order, and where the economy stands after starting the last building in it
+	private class State {
+		int round;
+		double ore;
+		int[] beaverFreeAt = new int[NUM_BEAVERS];
+		int minerFactoryDoneAt = -1;
+		int factoryFreeAt;
+		int numMiners;
+		// indices into the goal, in the order they were started
+		int[] order;
+		int numPlaced;
+		// -1 for buildings we haven't started
+		int[] finishedAt;
+		long cost;
+
+		State() {
+			order = new int[goal.buildings.length];
+			finishedAt = new int[goal.buildings.length];
+			for (int i = 0; i < finishedAt.length; i++) {
+				finishedAt[i] = -1;
+			}
+		}
+
+		State copy() {
+			State result = new State();
+			result.round = round;
+			result.ore = ore;
+			result.beaverFreeAt = beaverFreeAt.clone();
+			result.minerFactoryDoneAt = minerFactoryDoneAt;
+			result.factoryFreeAt = factoryFreeAt;
+			result.numMiners = numMiners;
+			result.order = order.clone();
+			result.numPlaced = numPlaced;
+			result.finishedAt = finishedAt.clone();
+			result.cost = cost;
+			return result;
+		}
+
+		// one turn of income, with the miner factory spending first, like it does in game
+		void advance() {
+			round++;
+			ore += EconomySimulator.HQ_ORE_PER_TURN;
+			if (minerFactoryDoneAt >= 0 && round >= minerFactoryDoneAt) {
+				// each miner starts earning once it's built
+				int working = 0;
+				for (int i = 0; i < numMiners; i++) {
+					if (round >= minerFactoryDoneAt + (i + 1) * RobotType.MINER.buildTurns) {
+						working++;
+					}
+				}
+				ore += working * minerIncome;
+				if (round >= factoryFreeAt && numMiners < minerTarget && ore >= RobotType.MINER.oreCost) {
+					ore -= RobotType.MINER.oreCost;
+					numMiners++;
+					factoryFreeAt = round + RobotType.MINER.buildTurns;
+				}
+			}
+		}
+
+		// the weighted completion times so far, plus the best we could possibly do for the rest
+		long bound() {
+			long result = cost;
+			for (int i = 0; i < finishedAt.length; i++) {
+				if (finishedAt[i] < 0) {
+					result += (long) goal.weights[i] * (round + goal.buildings[i].buildTurns);
+				}
+			}
+			return result;
+		}
+
+		RobotType[] getOrder(Goal goal) {
+			RobotType[] result = new RobotType[numPlaced];
+			for (int i = 0; i < numPlaced; i++) {
+				result[i] = goal.buildings[order[i]];
+			}
+			return result;
+		}
+	}
+
+	private State initialState() {
+		State s = new State();
+		s.ore = EconomySimulator.STARTING_ORE;
+		// the hq makes the beavers first, one after the other
+		for (int i = 0; i < NUM_BEAVERS; i++) {
+			s.ore -= RobotType.BEAVER.oreCost;
+			s.beaverFreeAt[i] = (i + 1) * RobotType.BEAVER.buildTurns;
+		}
+		return s;
+	}
+
+	// starts building b as soon as we can, or returns null if that never happens
+	private State place(State from, int b) {
+		RobotType type = goal.buildings[b];
+		int dependencyDoneAt = 0;
+		if (type.dependency != null) {
+			dependencyDoneAt = -1;
+			for (int i = 0; i < goal.buildings.length; i++) {
+				if (goal.buildings[i] == type.dependency && from.finishedAt[i] >= 0) {
+					dependencyDoneAt = from.finishedAt[i];
+				}
+			}
+			if (dependencyDoneAt < 0) {
+				return null;
+			}
+		}
+
+		State s = from.copy();
+		while (true) {
+			int beaver = 0;
+			for (int i = 1; i < NUM_BEAVERS; i++) {
+				if (s.beaverFreeAt[i] < s.beaverFreeAt[beaver]) {
+					beaver = i;
+				}
+			}
+			if (s.round >= s.beaverFreeAt[beaver] && s.round >= dependencyDoneAt && s.ore >= type.oreCost) {
+				s.ore -= type.oreCost;
+				int done = s.round + type.buildTurns;
+				s.beaverFreeAt[beaver] = done;
+				s.finishedAt[b] = done;
+				s.order[s.numPlaced++] = b;
+				s.cost += (long) goal.weights[b] * done;
+				if (type == RobotType.MINERFACTORY && s.minerFactoryDoneAt < 0) {
+					s.minerFactoryDoneAt = done;
+					s.factoryFreeAt = done;
+				}
+				return s;
+			}
+			if (s.round >= MAX_ROUND) {
+				return null;
+			}
+			s.advance();
+		}
+	}
+
+	public State search(int beamWidth) {
+		List<State> beam = new ArrayList<State>();
+		beam.add(initialState());
+		for (int depth = 0; depth < goal.buildings.length; depth++) {
+			List<State> next = new ArrayList<State>();
+			for (State s : beam) {
+				for (int b = 0; b < goal.buildings.length; b++) {
+					if (s.finishedAt[b] >= 0) {
+						continue;
+					}
+					State child = place(s, b);
+					if (child != null) {
+						next.add(child);
+					}
+				}
+			}
+			Collections.sort(next, new Comparator<State>() {
+				@Override
+				public int compare(State a, State b) {
+					return Long.compare(a.bound(), b.bound());
+				}
+			});
+			beam = next.subList(0, Math.min(beamWidth, next.size()));
+		}
+		return beam.get(0);
+	}
+
+	private static void writeTable(File output, int beamWidth, List<RobotType[]> openings) throws IOException {
+		PrintWriter out = new PrintWriter(new FileWriter(output));
+		try {
+			out.println("package dronerush;");
+			out.println();
+			out.println("import battlecode.common.RobotType;");
+			out.println();
+			out.println("/**");
+			out.println(" * The order beavers put up each strategy's buildings in, from tools/bctools/BuildOrderPlanner.");
+			out.println(" *");
+			out.println(" * This file is generated (\"ant build-orders\"), so don't edit it by hand. It was planned with a beam width of "
+					+ beamWidth + ".");
+			out.println(" */");
+			out.println("public class BuildOrders {");
+			for (int i = 0; i < GOALS.length; i++) {
+				out.println();
+				StringBuilder line = new StringBuilder("\tpublic static final RobotType[] " + GOALS[i].name + "_OPENING = {");
+				RobotType[] opening = openings.get(i);
+				for (int j = 0; j < opening.length; j++) {
+					String entry = "RobotType." + opening[j];
+					if (j == 0) {
+						line.append(" " + entry);
+					} else if (line.length() + entry.length() + 2 > 125) {
+						out.println(line + ",");
+						line = new StringBuilder("\t\t\t" + entry);
+					} else {
+						line.append(", " + entry);
+					}
+				}
+				out.println(line + " };");
+			}
+			out.println("}");
+		} finally {
+			out.close();
+		}
+	}
+}
@@ -0,0 +1,266 @@
+package bctools;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import battlecode.common.RobotType;
+import dronerush.BaseRobotHandler;
+
+/**
+ * A forward model of our economy, for picking miner counts and miner factory timing offline instead of making them up.
+ *
+ * The model plays out the opening turn by turn: the hq makes a beaver, the beaver builds miner factories, the factories make
+ * miners, and the miners mine with the same formula and the same "is it worth moving" rule as Mine. Each miner works its own
+ * tile in a field around the hq. Once the nearby tiles are used up, miners have to walk further to find fresh ones, and
+ * eventually settle for leftovers. The costs and build times come from RobotType, and the mining rate comes straight from
+ * BaseRobotHandler.miningRate(), so the model changes when the game constants or our mining code do.
+ *
+ * For each ore profile (how much ore there is per tile around the hq), it tries every schedule in a small grid (how many miners,
+ * when to stop making them, and when to build a second miner factory) and keeps the one with the most ore in the bank at the
+ * horizon. That's the ore we'd have for everything else, so miners that don't pay for themselves in time lose.
+ *
+ * The result is written as EconomyTable.java in the team, which the hq and the miner factory read for free at runtime.
+ *
+ * Usage: java bctools.EconomySimulator outputFile [horizon]
+ */
+public class EconomySimulator {
+
+	// the game doesn't expose these as constants, so they're from the specs
+	static final double STARTING_ORE = 500;
+	static final double HQ_ORE_PER_TURN = 5;
+	static final int MINING_DELAY = 2;
+
+	// roughly how many tiles within easy walking distance of the hq are worth mining
+	private static final int FIELD_TILES = 300;
+	// past this, walking further for fresh ore isn't worth it, so miners settle for leftovers
+	private static final int MAX_WALK = 20;
+
+	// upper bounds on the average ore per tile around the hq, for every profile but the last one, which is unbounded
+	private static final double[] PROFILE_UPPER_BOUNDS = { 5, 10, 15, 25, 40 };
+	// the density each profile is simulated with
+	static final double[] PROFILE_DENSITIES = { 3, 7.5, 12.5, 20, 32, 50 };
+
+	private static final int MAX_MINERS = 60;
+	private static final int ROUND_STEP = 25;
+	private static final int NEVER = -1;
+
+	private final int horizon;
+
+	public EconomySimulator(int horizon) {
+		this.horizon = horizon;
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("usage: EconomySimulator outputFile [horizon]");
+			System.exit(1);
+		}
+		File output = new File(args[0]);
+		int horizon = args.length >= 2 ? Integer.parseInt(args[1]) : 1000;
+
+		EconomySimulator sim = new EconomySimulator(horizon);
+		Schedule[] best = new Schedule[PROFILE_DENSITIES.length];
+		for (int i = 0; i < PROFILE_DENSITIES.length; i++) {
+			best[i] = sim.optimize(PROFILE_DENSITIES[i]);
+			System.out.println("ore " + PROFILE_DENSITIES[i] + "/tile: " + best[i]);
+		}
+		writeTable(output, horizon, best);
+		System.out.println("wrote " + output);
+	}
+
+	public static class Schedule {
+		public final int minerTarget;
+		public final int stopMinersRound;
+		public final int secondFactoryRound;
+		public double finalOre;
+
+		public Schedule(int minerTarget, int stopMinersRound, int secondFactoryRound) {
+			this.minerTarget = minerTarget;
+			this.stopMinersRound = stopMinersRound;
+			this.secondFactoryRound = secondFactoryRound;
+		}
+
+		@Override
+		public String toString() {
+			return minerTarget + " miners until round " + stopMinersRound + ", second factory "
+					+ (secondFactoryRound == NEVER ? "never" : "at round " + secondFactoryRound) + ", " + (int) finalOre
+					+ " ore at the horizon";
+		}
+	}
+
+	public Schedule optimize(double density) {
+		Schedule best = null;
+		for (int secondFactory = NEVER; secondFactory < horizon; secondFactory = (secondFactory == NEVER ? ROUND_STEP
+				: secondFactory + ROUND_STEP)) {
+			for (int stop = ROUND_STEP; stop <= horizon; stop += ROUND_STEP) {
+				for (int miners = 1; miners <= MAX_MINERS; miners++) {
+					Schedule candidate = new Schedule(miners, stop, secondFactory);
+					candidate.finalOre = simulate(density, candidate);
+					// ties go to the simpler schedule, which is the one we saw first
+					if (best == null || candidate.finalOre > best.finalOre + 1e-6) {
+						best = candidate;
+					}
+				}
+			}
+		}
+		return best;
+	}
+
+	// returns the ore in the bank at the horizon
+	public double simulate(double density, Schedule schedule) {
+		double ore = STARTING_ORE;
+
+		// the hq makes one beaver right away, and it builds all the factories
+		ore -= RobotType.BEAVER.oreCost;
+		int beaverFreeAt = RobotType.BEAVER.buildTurns;
+
+		int numFactories = 0;
+		int[] factoryFreeAt = new int[2];
+
+		int numMiners = 0;
+		int[] minerFreeAt = new int[MAX_MINERS];
+		double[] tileOre = new double[MAX_MINERS];
+
+		int freshTiles = FIELD_TILES;
+		double freshRate = BaseRobotHandler.miningRate(density, false);
+		// what a miner leaves behind when it gives up on a tile. other miners can come back for it later.
+		double leftover = density;
+		while (leftover > 0 && !shouldMove(leftover, freshRate)) {
+			leftover -= BaseRobotHandler.miningRate(leftover, false);
+		}
+
+		for (int round = 0; round < horizon; round++) {
+			ore += HQ_ORE_PER_TURN;
+
+			// factories
+			int wantedFactories = (schedule.secondFactoryRound != NEVER && round >= schedule.secondFactoryRound) ? 2 : 1;
+			if (numFactories < wantedFactories && round >= beaverFreeAt && ore >= RobotType.MINERFACTORY.oreCost) {
+				ore -= RobotType.MINERFACTORY.oreCost;
+				factoryFreeAt[numFactories++] = round + RobotType.MINERFACTORY.buildTurns;
+				beaverFreeAt = round + RobotType.MINERFACTORY.buildTurns;
+			}
+
+			// miners
+			for (int f = 0; f < numFactories; f++) {
+				if (round >= factoryFreeAt[f] && round < schedule.stopMinersRound && numMiners < schedule.minerTarget
+						&& ore >= RobotType.MINER.oreCost) {
+					ore -= RobotType.MINER.oreCost;
+					factoryFreeAt[f] = round + RobotType.MINER.buildTurns;
+					minerFreeAt[numMiners] = round + RobotType.MINER.buildTurns;
+					tileOre[numMiners] = -1;
+					numMiners++;
+				}
+			}
+
+			// mining
+			for (int m = 0; m < numMiners; m++) {
+				if (round < minerFreeAt[m]) {
+					continue;
+				}
+				if (tileOre[m] < 0 || shouldMove(tileOre[m], freshTiles > 0 ? freshRate : 0)) {
+					// go find a new tile. the fewer fresh ones are left, the further we have to walk.
+					int walk;
+					if (freshTiles > 0) {
+						walk = Math.min(MAX_WALK, (FIELD_TILES + freshTiles - 1) / freshTiles);
+						freshTiles--;
+						tileOre[m] = density;
+					} else {
+						walk = MAX_WALK;
+						tileOre[m] = leftover;
+					}
+					minerFreeAt[m] = round + walk * (int) Math.ceil(RobotType.MINER.movementDelay);
+					continue;
+				}
+				double mined = BaseRobotHandler.miningRate(tileOre[m], false);
+				tileOre[m] -= mined;
+				ore += mined;
+				minerFreeAt[m] = round + MINING_DELAY;
+			}
+		}
+		return ore;
+	}
+
+	// the same comparison Mine makes: stay if two turns here beat one turn next door, and if it's worth mining at all
+	private static boolean shouldMove(double oreHere, double adjacentRate) {
+		double first = BaseRobotHandler.miningRate(oreHere, false);
+		double second = BaseRobotHandler.miningRate(oreHere - first, false);
+		return first + second < adjacentRate || first + second <= BaseRobotHandler.MIN_ORE_PER_TURN_THRESHOLD;
+	}
+
+	private static void writeTable(File output, int horizon, Schedule[] schedules) throws IOException {
+		PrintWriter out = new PrintWriter(new FileWriter(output));
+		try {
+			out.println("package dronerush;");
+			out.println();
+			out.println("/**");
+			out.println(" * Miner counts and miner factory timing for each ore profile, from tools/bctools/EconomySimulator.");
+			out.println(" *");
+			out.println(" * This file is generated (\"ant economy-table\"), so don't edit it by hand. It was optimized for the most ore in the bank at");
+			out.println(" * round " + horizon + ", with mining thresholds from Parameters as they were at the time.");
+			out.println(" */");
+			out.println("public class EconomyTable {");
+			out.println();
+			out.println("\t// upper bounds on the average ore per tile around the hq for each profile. the last profile is everything above.");
+			out.println("\tpublic static final double[] PROFILE_UPPER_BOUNDS = " + format(PROFILE_UPPER_BOUNDS) + ";");
+			out.println();
+			int[] targets = new int[schedules.length];
+			int[] stops = new int[schedules.length];
+			int[] factories = new int[schedules.length];
+			for (int i = 0; i < schedules.length; i++) {
+				targets[i] = schedules[i].minerTarget;
+				stops[i] = schedules[i].stopMinersRound;
+				factories[i] = schedules[i].secondFactoryRound;
+			}
+			out.println("\t// how many miners to keep. the search breaks ties toward fewer miners, so this many get built before the stop round.");
+			out.println("\t// after the stop round, new miners won't pay for themselves, so the target only decides how many losses to replace.");
+			out.println("\tpublic static final int[] MINER_TARGET = " + format(targets) + ";");
+			out.println("\tpublic static final int[] STOP_MINERS_ROUND = " + format(stops) + ";");
+			out.println("\t// when to build a second miner factory, or " + NEVER + " for never");
+			out.println("\tpublic static final int[] SECOND_MINER_FACTORY_ROUND = " + format(factories) + ";");
+			out.println();
+			out.println("\tpublic static int profileOf(double averageOre) {");
+			out.println("\t\tfor (int i = 0; i < PROFILE_UPPER_BOUNDS.length; i++) {");
+			out.println("\t\t\tif (averageOre < PROFILE_UPPER_BOUNDS[i]) {");
+			out.println("\t\t\t\treturn i;");
+			out.println("\t\t\t}");
+			out.println("\t\t}");
+			out.println("\t\treturn PROFILE_UPPER_BOUNDS.length;");
+			out.println("\t}");
+			out.println();
+			out.println("\tpublic static int minerTarget(int profile) {");
+			out.println("\t\treturn MINER_TARGET[profile];");
+			out.println("\t}");
+			out.println();
+			out.println("\t// whether it's too late for extra miners to pay for themselves, so we should only replace the ones we lose");
+			out.println("\tpublic static boolean isMinerGrowthOver(int profile, int roundNum) {");
+			out.println("\t\treturn roundNum >= STOP_MINERS_ROUND[profile];");
+			out.println("\t}");
+			out.println();
+			out.println("\tpublic static int minerFactoriesWanted(int profile, int roundNum) {");
+			out.println("\t\tint secondFactoryRound = SECOND_MINER_FACTORY_ROUND[profile];");
+			out.println("\t\treturn (secondFactoryRound >= 0 && roundNum >= secondFactoryRound) ? 2 : 1;");
+			out.println("\t}");
+			out.println("}");
+		} finally {
+			out.close();
+		}
+	}
+
+	private static String format(int[] values) {
+		StringBuilder result = new StringBuilder("{ ");
+		for (int i = 0; i < values.length; i++) {
+			result.append(i == 0 ? "" : ", ").append(values[i]);
+		}
+		return result.append(" }").toString();
+	}
+
+	private static String format(double[] values) {
+		StringBuilder result = new StringBuilder("{ ");
+		for (int i = 0; i < values.length; i++) {
+			result.append(i == 0 ? "" : ", ").append(values[i]);
+		}
+		return result.append(" }").toString();
+	}
+}
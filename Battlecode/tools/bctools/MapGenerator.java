@@ -0,0 +1,526 @@
+package bctools;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import battlecode.common.MapLocation;
+import dronerush.Util;
+import dronerush.Util.MapConfiguration;
+
+/**
+ * Generates a corpus of symmetric stress-test maps, one batch for each Util.MapConfiguration.
+ *
+ * The maps default to the maximum map size, with random void blobs and ore patches, and one of three tower layouts:
+ * - RANDOM: towers anywhere
+ * - AMBIGUOUS: our towers are arranged so that the tower-only symmetry checks in HQHandler also accept a second configuration.
+ * for a rotation, that's the diagonal reflection (so the hqs sit on the anti-diagonal). for everything else, it's the rotation
+ * around the hq midpoint.
+ * - WALL: a chain of towers that isDroneXml() flags as an anti-drone wall
+ *
+ * Alongside the maps, it writes manifest.csv with the true configuration of each map and the configurations our tower checks
+ * detect, so symmetry-detection accuracy can be measured without playing a single game. For the BFS convergence side, run the
+ * tournament on the generated directory: it reports the round each team's distance fields converged ("avg conv" in the summary,
+ * converged_a/converged_b in results.csv).
+ *
+ * Usage: java bctools.MapGenerator outputDir mapsPerCombination voidDensities seed [size]
+ */
+public class MapGenerator {
+
+	public static enum TowerLayout {
+		RANDOM, AMBIGUOUS, WALL
+	};
+
+	private static final int NUM_TOWERS = 6;
+	private static final int MIN_HQ_DIST_SQ = 40 * 40;
+	// a bit under sqrt(97), the inter-tower distance isDroneXml() uses
+	private static final int WALL_TOWER_SPACING = 8;
+	private static final int MAX_ATTEMPTS = 1000;
+
+	private final int size;
+	private final MapConfiguration config;
+	private final TowerLayout layout;
+	private final double voidDensity;
+	private final Random gen;
+
+	private final boolean[][] isVoid;
+	private final int[][] ore;
+	private MapLocation hqA;
+	private MapLocation hqB;
+	private final List<MapLocation> towersA = new ArrayList<MapLocation>();
+	private final List<MapLocation> towersB = new ArrayList<MapLocation>();
+
+	public MapGenerator(int size, MapConfiguration config, TowerLayout layout, double voidDensity, long seed) {
+		this.size = size;
+		this.config = config;
+		this.layout = layout;
+		this.voidDensity = voidDensity;
+		this.gen = new Random(seed);
+		isVoid = new boolean[size][size];
+		ore = new int[size][size];
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 4) {
+			System.err.println("usage: MapGenerator outputDir mapsPerCombination voidDensities seed [size]");
+			System.exit(1);
+		}
+		File outputDir = new File(args[0]);
+		int count = Integer.parseInt(args[1]);
+		List<String> densities = TournamentRunner.splitList(args[2]);
+		long seed = Long.parseLong(args[3]);
+		int size = args.length > 4 ? Integer.parseInt(args[4]) : 120;
+		if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+			throw new IOException("couldn't create " + outputDir);
+		}
+
+		Random seeds = new Random(seed);
+		int total = 0;
+		int correct = 0;
+		int ambiguous = 0;
+		PrintWriter manifest = new PrintWriter(new FileWriter(new File(outputDir, "manifest.csv")));
+		try {
+			manifest.println("map,configuration,tower_layout,void_density,detected,chosen,correct");
+			for (MapConfiguration config : MapConfiguration.values()) {
+				for (TowerLayout layout : TowerLayout.values()) {
+					for (int d = 0; d < densities.size(); d++) {
+						double density = Double.parseDouble(densities.get(d));
+						for (int i = 0; i < count; i++) {
+							String name = "stress" + shortName(config) + layout.name().toLowerCase() + d + "n" + i;
+							MapGenerator mapGen = new MapGenerator(size, config, layout, density, seeds.nextLong());
+							mapGen.generate();
+							mapGen.write(new File(outputDir, name + ".xml"));
+
+							int detected = mapGen.detectConfigurations();
+							MapConfiguration chosen = chooseLikeBaseRobotHandler(detected);
+							boolean isCorrect = chosen == config;
+							manifest.println(name + "," + config + "," + layout + "," + density + "," + describe(detected) + ","
+									+ chosen + "," + isCorrect);
+							total++;
+							if (isCorrect) {
+								correct++;
+							}
+							if (Integer.bitCount(detected) > 1) {
+								ambiguous++;
+							}
+						}
+					}
+				}
+			}
+		} finally {
+			manifest.close();
+		}
+		System.out.println("wrote " + total + " maps to " + outputDir);
+		System.out.println("tower-only symmetry detection picked the right configuration on " + correct + "/" + total + " maps ("
+				+ ambiguous + " ambiguous)");
+	}
+
+	private static String shortName(MapConfiguration config) {
+		switch (config) {
+		case VERTICAL_REFLECTION:
+			return "vert";
+		case HORIZONTAL_REFLECTION:
+			return "horiz";
+		case DIAGONAL_REFLECTION:
+			return "diag";
+		case INVERSE_DIAGONAL_REFLECTION:
+			return "invdiag";
+		case ROTATION:
+			return "rot";
+		}
+		return "unknown";
+	}
+
+	// where the tile (x, y) ends up under the map's true symmetry
+	private int[] partner(int x, int y) {
+		int n = size - 1;
+		switch (config) {
+		case VERTICAL_REFLECTION:
+			return new int[] { x, n - y };
+		case HORIZONTAL_REFLECTION:
+			return new int[] { n - x, y };
+		case DIAGONAL_REFLECTION:
+			return new int[] { y, x };
+		case INVERSE_DIAGONAL_REFLECTION:
+			return new int[] { n - y, n - x };
+		case ROTATION:
+		default:
+			return new int[] { n - x, n - y };
+		}
+	}
+
+	private MapLocation partner(MapLocation loc) {
+		int[] p = partner(loc.x, loc.y);
+		return new MapLocation(p[0], p[1]);
+	}
+
+	public void generate() {
+		generateVoid();
+		generateOre();
+
+		for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+			if (placeHqs() && placeTowers()) {
+				break;
+			}
+			towersA.clear();
+			towersB.clear();
+		}
+		if (hqA == null || towersA.isEmpty()) {
+			throw new IllegalStateException("couldn't place hqs and towers for " + config + "/" + layout);
+		}
+
+		// everything important needs some breathing room, and the hqs need to be able to reach each other
+		clearAround(hqA, 2);
+		for (MapLocation tower : towersA) {
+			clearAround(tower, 1);
+		}
+		if (!isConnected(hqA, hqB)) {
+			carveCorridor(hqA, hqB);
+		}
+	}
+
+	private void generateVoid() {
+		// random noise, smoothed out into blobs
+		boolean[][] noise = new boolean[size][size];
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				noise[x][y] = gen.nextDouble() < voidDensity;
+			}
+		}
+		for (int pass = 0; pass < 3; pass++) {
+			boolean[][] smoothed = new boolean[size][size];
+			for (int x = 0; x < size; x++) {
+				for (int y = 0; y < size; y++) {
+					int voidNeighbors = 0;
+					for (int dx = -1; dx <= 1; dx++) {
+						for (int dy = -1; dy <= 1; dy++) {
+							int nx = x + dx;
+							int ny = y + dy;
+							if (nx >= 0 && ny >= 0 && nx < size && ny < size && noise[nx][ny]) {
+								voidNeighbors++;
+							}
+						}
+					}
+					smoothed[x][y] = voidNeighbors >= 5;
+				}
+			}
+			noise = smoothed;
+		}
+
+		// copy one half of the map onto the other
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				int[] p = partner(x, y);
+				if (isCanonical(x, y, p)) {
+					isVoid[x][y] = isVoid[p[0]][p[1]] = noise[x][y];
+				}
+			}
+		}
+	}
+
+	private void generateOre() {
+		int numPatches = 8 + gen.nextInt(12);
+		for (int i = 0; i < numPatches; i++) {
+			int cx = gen.nextInt(size);
+			int cy = gen.nextInt(size);
+			int radius = 3 + gen.nextInt(10);
+			int peak = 10 + gen.nextInt(50);
+			for (int x = Math.max(0, cx - radius); x < Math.min(size, cx + radius + 1); x++) {
+				for (int y = Math.max(0, cy - radius); y < Math.min(size, cy + radius + 1); y++) {
+					double dist = Math.sqrt((x - cx) * (x - cx) + (y - cy) * (y - cy));
+					int amount = (int) (peak * Math.max(0, 1 - dist / (radius + 1)));
+					ore[x][y] = Math.max(ore[x][y], amount);
+				}
+			}
+		}
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				int[] p = partner(x, y);
+				if (isCanonical(x, y, p)) {
+					ore[p[0]][p[1]] = ore[x][y];
+				}
+			}
+		}
+	}
+
+	// every symmetry is its own inverse, so the lower-indexed tile of each pair is the one we keep
+	private boolean isCanonical(int x, int y, int[] p) {
+		return x * size + y <= p[0] * size + p[1];
+	}
+
+	private boolean placeHqs() {
+		int n = size - 1;
+		MapLocation candidate;
+		if (layout == TowerLayout.AMBIGUOUS && config == MapConfiguration.ROTATION) {
+			// on the anti-diagonal, the rotation and the diagonal reflection send the hq to the same place
+			int x = gen.nextInt(size);
+			candidate = new MapLocation(x, n - x);
+		} else if (layout == TowerLayout.AMBIGUOUS && config == MapConfiguration.DIAGONAL_REFLECTION) {
+			// same trick from the other side
+			int x = gen.nextInt(size);
+			candidate = new MapLocation(x, n - x);
+		} else if (layout == TowerLayout.AMBIGUOUS && config == MapConfiguration.INVERSE_DIAGONAL_REFLECTION) {
+			int x = gen.nextInt(size);
+			candidate = new MapLocation(x, x);
+		} else {
+			candidate = new MapLocation(gen.nextInt(size), gen.nextInt(size));
+		}
+		MapLocation other = partner(candidate);
+		if (candidate.distanceSquaredTo(other) < MIN_HQ_DIST_SQ) {
+			return false;
+		}
+		hqA = candidate;
+		hqB = other;
+		return true;
+	}
+
+	private boolean placeTowers() {
+		switch (layout) {
+		case AMBIGUOUS:
+			return placeAmbiguousTowers();
+		case WALL:
+			return placeWallTowers();
+		case RANDOM:
+		default:
+			for (int i = 0; i < NUM_TOWERS; i++) {
+				if (!tryAddTower(randomLocation())) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	// the second configuration we want the tower checks to confuse with the true one
+	private int[] alternatePartner(int x, int y) {
+		if (config == MapConfiguration.ROTATION) {
+			// diagonal reflection, which agrees with the rotation on the hqs because they're on the anti-diagonal
+			return new int[] { y, x };
+		}
+		// rotation around the hq midpoint, which always agrees with the true configuration on the hqs
+		return new int[] { hqA.x + hqB.x - x, hqA.y + hqB.y - y };
+	}
+
+	private boolean placeAmbiguousTowers() {
+		// if our tower set is closed under (true symmetry) o (alternate symmetry), then mirroring it with either symmetry gives the
+		// same enemy towers, so both checks pass
+		while (towersA.size() < NUM_TOWERS) {
+			MapLocation t = randomLocation();
+			int[] alt = alternatePartner(t.x, t.y);
+			int[] composed = partner(alt[0], alt[1]);
+			MapLocation twin = new MapLocation(composed[0], composed[1]);
+			if (!inBounds(twin)) {
+				return false;
+			}
+			if (twin.equals(t)) {
+				if (!tryAddTower(t)) {
+					return false;
+				}
+			} else {
+				if (towersA.size() + 2 > NUM_TOWERS) {
+					// we'd have to split up a pair, so fill in with a tower that's its own twin, or stop here
+					return towersA.size() >= 2;
+				}
+				if (!tryAddTower(t) || !tryAddTower(twin)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private boolean placeWallTowers() {
+		// a straight chain of towers across the hq's approach, each one close enough to its neighbors to count as connected but
+		// not all close enough to each other to be a clique
+		MapLocation center = new MapLocation(size / 2, size / 2);
+		int dx = Integer.signum(center.x - hqA.x);
+		int dy = Integer.signum(center.y - hqA.y);
+		if (dx == 0 && dy == 0) {
+			return false;
+		}
+		int wallDist = 10 + gen.nextInt(6);
+		MapLocation wallCenter = hqA.add(dx * wallDist, dy * wallDist);
+		// walk perpendicular to the approach direction
+		int px = -dy;
+		int py = dx;
+		double norm = Math.sqrt(px * px + py * py);
+		for (int i = 0; i < NUM_TOWERS; i++) {
+			double offset = (i - (NUM_TOWERS - 1) / 2.0) * WALL_TOWER_SPACING / norm;
+			MapLocation t = wallCenter.add((int) Math.round(px * offset), (int) Math.round(py * offset));
+			if (!tryAddTower(t)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private MapLocation randomLocation() {
+		return new MapLocation(gen.nextInt(size), gen.nextInt(size));
+	}
+
+	private boolean inBounds(MapLocation loc) {
+		return loc.x >= 0 && loc.y >= 0 && loc.x < size && loc.y < size;
+	}
+
+	private boolean tryAddTower(MapLocation t) {
+		if (!inBounds(t)) {
+			return false;
+		}
+		MapLocation mirrored = partner(t);
+		// a tower can't be its own mirror image, and it can't sit on top of anything else
+		if (mirrored.equals(t) || t.equals(hqA) || t.equals(hqB) || towersA.contains(t) || towersB.contains(t)
+				|| towersA.contains(mirrored)) {
+			return false;
+		}
+		towersA.add(t);
+		towersB.add(mirrored);
+		return true;
+	}
+
+	private void clearAround(MapLocation loc, int radius) {
+		for (int x = loc.x - radius; x <= loc.x + radius; x++) {
+			for (int y = loc.y - radius; y <= loc.y + radius; y++) {
+				setNormal(x, y);
+			}
+		}
+	}
+
+	private void setNormal(int x, int y) {
+		if (x < 0 || y < 0 || x >= size || y >= size) {
+			return;
+		}
+		int[] p = partner(x, y);
+		isVoid[x][y] = false;
+		isVoid[p[0]][p[1]] = false;
+	}
+
+	private boolean isConnected(MapLocation from, MapLocation to) {
+		boolean[][] visited = new boolean[size][size];
+		LinkedList<MapLocation> queue = new LinkedList<MapLocation>();
+		queue.add(from);
+		visited[from.x][from.y] = true;
+		while (!queue.isEmpty()) {
+			MapLocation cur = queue.removeFirst();
+			if (cur.equals(to)) {
+				return true;
+			}
+			for (int dx = -1; dx <= 1; dx++) {
+				for (int dy = -1; dy <= 1; dy++) {
+					int nx = cur.x + dx;
+					int ny = cur.y + dy;
+					if (nx >= 0 && ny >= 0 && nx < size && ny < size && !visited[nx][ny] && !isVoid[nx][ny]) {
+						visited[nx][ny] = true;
+						queue.add(new MapLocation(nx, ny));
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	private void carveCorridor(MapLocation from, MapLocation to) {
+		int steps = Math.max(Math.abs(to.x - from.x), Math.abs(to.y - from.y));
+		for (int i = 0; i <= steps; i++) {
+			int x = from.x + (int) Math.round((double) (to.x - from.x) * i / steps);
+			int y = from.y + (int) Math.round((double) (to.y - from.y) * i / steps);
+			setNormal(x, y);
+		}
+	}
+
+	// runs the same tower-only checks the hq runs at the start of the game, and returns the bitmask it would broadcast
+	public int detectConfigurations() {
+		MapLocation[] ourTowers = towersA.toArray(new MapLocation[towersA.size()]);
+		MapLocation[] theirTowers = towersB.toArray(new MapLocation[towersB.size()]);
+		float[] midpoint = Util.findMidpoint(hqA, hqB);
+		return Util.encodeMapConfigurationAsBitmask(Util.checkIsVerticalReflection(midpoint, hqA, hqB, ourTowers, theirTowers),
+				Util.checkIsHorizontalReflection(midpoint, hqA, hqB, ourTowers, theirTowers),
+				Util.checkIsDiagonalReflection(midpoint, hqA, hqB, ourTowers, theirTowers),
+				Util.checkIsReverseDiagonalReflection(midpoint, hqA, hqB, ourTowers, theirTowers),
+				Util.checkIsRotation(midpoint, hqA, hqB, ourTowers, theirTowers));
+	}
+
+	// the same trump order as BaseRobotHandler.getMapConfiguration()
+	public static MapConfiguration chooseLikeBaseRobotHandler(int bitmask) {
+		if (Util.decodeRotation(bitmask)) {
+			return MapConfiguration.ROTATION;
+		} else if (Util.decodeHorizontalReflection(bitmask)) {
+			return MapConfiguration.HORIZONTAL_REFLECTION;
+		} else if (Util.decodeVerticalReflection(bitmask)) {
+			return MapConfiguration.VERTICAL_REFLECTION;
+		} else if (Util.decodeDiagonalReflection(bitmask)) {
+			return MapConfiguration.DIAGONAL_REFLECTION;
+		} else if (Util.decodeReverseDiagonalReflection(bitmask)) {
+			return MapConfiguration.INVERSE_DIAGONAL_REFLECTION;
+		}
+		return null;
+	}
+
+	private static String describe(int bitmask) {
+		StringBuilder result = new StringBuilder();
+		for (MapConfiguration config : MapConfiguration.values()) {
+			if ((bitmask & (1 << config.ordinal())) != 0) {
+				if (result.length() > 0) {
+					result.append('|');
+				}
+				result.append(config);
+			}
+		}
+		return result.length() == 0 ? "NONE" : result.toString();
+	}
+
+	// writes the map in the 2015 xml format. each tile is a symbol followed by its ore.
+	public void write(File file) throws IOException {
+		char[][] symbols = new char[size][size];
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				symbols[x][y] = isVoid[x][y] ? 'v' : 'n';
+			}
+		}
+		symbols[hqA.x][hqA.y] = 'a';
+		symbols[hqB.x][hqB.y] = 'b';
+		for (MapLocation t : towersA) {
+			symbols[t.x][t.y] = 'A';
+		}
+		for (MapLocation t : towersB) {
+			symbols[t.x][t.y] = 'B';
+		}
+
+		PrintWriter out = new PrintWriter(new FileWriter(file));
+		try {
+			out.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+			out.println("<map height=\"" + size + "\" width=\"" + size + "\">");
+			out.println("    <game seed=\"" + gen.nextInt(100000) + "\" rounds=\"2000\"/>");
+			out.println("    <symbols>");
+			out.println("        <symbol terrain=\"NORMAL\" type=\"TERRAIN\" character=\"n\"/>");
+			out.println("        <symbol terrain=\"VOID\" type=\"TERRAIN\" character=\"v\"/>");
+			out.println("        <symbol team=\"A\" type=\"HQ\" character=\"a\"/>");
+			out.println("        <symbol team=\"B\" type=\"HQ\" character=\"b\"/>");
+			out.println("        <symbol team=\"A\" type=\"TOWER\" character=\"A\"/>");
+			out.println("        <symbol team=\"B\" type=\"TOWER\" character=\"B\"/>");
+			out.println("    </symbols>");
+			out.println("    <data>");
+			out.println("<![CDATA[");
+			for (int y = 0; y < size; y++) {
+				StringBuilder row = new StringBuilder();
+				for (int x = 0; x < size; x++) {
+					if (x > 0) {
+						row.append(' ');
+					}
+					// void tiles can't be mined, so don't bother giving them ore
+					row.append(symbols[x][y]).append(isVoid[x][y] ? 0 : ore[x][y]);
+				}
+				out.println(row);
+			}
+			out.println("]]>");
+			out.println("    </data>");
+			out.println("</map>");
+		} finally {
+			out.close();
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package bctools;
+
+/**
+ * The outcome of a single headless match, as scraped from the server output.
+ */
+public class MatchResult {
+	public final String teamA;
+	public final String teamB;
+	public final String map;
+
+	// 'A', 'B', or 0 if we couldn't figure out who won (usually because the match crashed)
+	public final char winner;
+	public final int rounds;
+	public final long millis;
+	// the round each team's distance fields converged (its pathfinding queues first ran dry), or 0 if it never said so. only
+	// teams that print "distance fields converged at round N" report this.
+	public final int convergedRoundA;
+	public final int convergedRoundB;
+
+	public MatchResult(String teamA, String teamB, String map, char winner, int rounds, long millis, int convergedRoundA,
+			int convergedRoundB) {
+		this.teamA = teamA;
+		this.teamB = teamB;
+		this.map = map;
+		this.winner = winner;
+		this.rounds = rounds;
+		this.millis = millis;
+		this.convergedRoundA = convergedRoundA;
+		this.convergedRoundB = convergedRoundB;
+	}
+
+	public boolean isValid() {
+		return winner == 'A' || winner == 'B';
+	}
+
+	public String getWinningTeam() {
+		if (winner == 'A') {
+			return teamA;
+		} else if (winner == 'B') {
+			return teamB;
+		}
+		return null;
+	}
+
+	public boolean didWin(String team) {
+		return team.equals(getWinningTeam());
+	}
+
+	// 0 if the team didn't report it
+	public int getConvergedRound(String team) {
+		if (team.equals(teamA)) {
+			return convergedRoundA;
+		} else if (team.equals(teamB)) {
+			return convergedRoundB;
+		}
+		return 0;
+	}
+
+	public static String csvHeader() {
+		return "team_a,team_b,map,winner,rounds,seconds,converged_a,converged_b";
+	}
+
+	public String toCsv() {
+		String winningTeam = getWinningTeam();
+		return teamA + "," + teamB + "," + map + "," + (winningTeam == null ? "error" : winningTeam) + "," + rounds + ","
+				+ String.format("%.1f", millis / 1000.0) + "," + convergedRoundA + "," + convergedRoundB;
+	}
+
+	@Override
+	public String toString() {
+		String winningTeam = getWinningTeam();
+		return teamA + " vs. " + teamB + " on " + map + ": " + (winningTeam == null ? "no result" : winningTeam + " wins")
+				+ " (round " + rounds + ")";
+	}
+}
@@ -0,0 +1,154 @@
+package bctools;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs a single headless match in its own JVM. This is the same thing "ant file" does, except the teams and map come from the
+ * arguments instead of bc.conf, so that lots of these can run side by side.
+ */
+public class MatchRunner {
+
+	// the server prints something like "dronerush (A) wins (round 1873)" when the match is over
+	private static final Pattern WINNER_PATTERN = Pattern.compile("\\(([AB])\\) wins");
+	private static final Pattern ROUND_PATTERN = Pattern.compile("\\(round (\\d+)\\)");
+	// robot output is prefixed with its team, like "[A:HQ#123@45] distance fields converged at round 45"
+	private static final Pattern CONVERGED_PATTERN = Pattern.compile("\\[([AB]):.*distance fields converged at round (\\d+)");
+
+	private final List<String> baseConfLines;
+	private final String mapPath;
+	private final File workDir;
+	private final String classpath;
+	private final String maxHeap;
+
+	private final AtomicInteger matchCounter = new AtomicInteger();
+
+	public MatchRunner(File baseConf, String mapPath, File workDir, String classpath, String maxHeap) throws IOException {
+		this.baseConfLines = readBaseConf(baseConf);
+		this.mapPath = mapPath;
+		this.workDir = workDir;
+		this.classpath = classpath;
+		this.maxHeap = maxHeap;
+
+		if (!workDir.isDirectory() && !workDir.mkdirs()) {
+			throw new IOException("couldn't create " + workDir);
+		}
+	}
+
+	private static List<String> readBaseConf(File baseConf) throws IOException {
+		// keep all the engine settings, but throw out the ones we're going to override per match
+		List<String> result = new ArrayList<String>();
+		BufferedReader in = new BufferedReader(new FileReader(baseConf));
+		try {
+			String line;
+			while ((line = in.readLine()) != null) {
+				String trimmed = line.trim();
+				if (trimmed.startsWith("bc.game.") || trimmed.startsWith("bc.server.save-file")
+						|| trimmed.startsWith("bc.engine.silence-")) {
+					continue;
+				}
+				result.add(line);
+			}
+		} finally {
+			in.close();
+		}
+		return result;
+	}
+
+	public MatchResult run(String teamA, String teamB, String map) throws IOException, InterruptedException {
+		int id = matchCounter.incrementAndGet();
+		String name = id + "-" + teamA + "-" + teamB + "-" + map;
+		File conf = new File(workDir, name + ".conf");
+		File log = new File(workDir, name + ".log");
+		writeConf(conf, teamA, teamB, map, new File(workDir, name + ".rms"));
+
+		List<String> command = new ArrayList<String>();
+		command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+		command.add("-Xmx" + maxHeap);
+		command.add("-cp");
+		command.add(classpath);
+		command.add("-Dbc.server.mode=headless");
+		command.add("-Dbc.server.map-path=" + mapPath);
+		command.add("battlecode.server.Main");
+		command.add("-c");
+		command.add(conf.getPath());
+
+		ProcessBuilder builder = new ProcessBuilder(command);
+		builder.redirectErrorStream(true);
+		long startTime = System.currentTimeMillis();
+		Process process = builder.start();
+
+		// the output has to be drained as we go, or the server will block once the pipe fills up
+		char winner = 0;
+		int rounds = 0;
+		int convergedRoundA = 0;
+		int convergedRoundB = 0;
+		BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream()));
+		PrintWriter logWriter = new PrintWriter(new FileWriter(log));
+		try {
+			String line;
+			while ((line = out.readLine()) != null) {
+				logWriter.println(line);
+				Matcher convergedMatcher = CONVERGED_PATTERN.matcher(line);
+				if (convergedMatcher.find()) {
+					int round = Integer.parseInt(convergedMatcher.group(2));
+					if (convergedMatcher.group(1).equals("A")) {
+						convergedRoundA = round;
+					} else {
+						convergedRoundB = round;
+					}
+					continue;
+				}
+				Matcher winnerMatcher = WINNER_PATTERN.matcher(line);
+				if (winnerMatcher.find()) {
+					winner = winnerMatcher.group(1).charAt(0);
+					Matcher roundMatcher = ROUND_PATTERN.matcher(line);
+					if (roundMatcher.find()) {
+						rounds = Integer.parseInt(roundMatcher.group(1));
+					}
+				}
+			}
+		} finally {
+			out.close();
+			logWriter.close();
+		}
+		process.waitFor();
+		long millis = System.currentTimeMillis() - startTime;
+
+		// the conf and log are only interesting if something went wrong
+		conf.delete();
+		if (winner != 0) {
+			log.delete();
+		}
+		return new MatchResult(teamA, teamB, map, winner, rounds, millis, convergedRoundA, convergedRoundB);
+	}
+
+	private void writeConf(File conf, String teamA, String teamB, String map, File saveFile) throws IOException {
+		PrintWriter out = new PrintWriter(new FileWriter(conf));
+		try {
+			for (String line : baseConfLines) {
+				out.println(line);
+			}
+			// player output stays on, since that's where the distance field convergence rounds come from. our own players hardly
+			// print anything else.
+			out.println("bc.engine.silence-a=false");
+			out.println("bc.engine.silence-b=false");
+			out.println("bc.game.maps=" + map);
+			out.println("bc.game.team-a=" + teamA);
+			out.println("bc.game.team-b=" + teamB);
+			out.println("bc.server.save-file=" + saveFile.getPath().replace('\\', '/'));
+		} finally {
+			out.close();
+		}
+	}
+}
@@ -0,0 +1,167 @@
+package bctools;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The tunable constants in a team's Parameters.java.
+ *
+ * A constant is tunable if it's declared like "public static final double NAME = 1.5; // tune 0.25 5.0". Everything else in the
+ * file is left alone when we write it back out.
+ */
+public class ParameterSet {
+
+	private static final Pattern DECLARATION = Pattern
+			.compile("(public static final (int|double) (\\w+) = )([-0-9.]+)(;\\s*//\\s*tune\\s+([-0-9.]+)\\s+([-0-9.]+).*)");
+
+	public static class Parameter {
+		public final String name;
+		public final boolean isInt;
+		public final double min;
+		public final double max;
+		public double value;
+
+		Parameter(String name, boolean isInt, double value, double min, double max) {
+			this.name = name;
+			this.isInt = isInt;
+			this.value = value;
+			this.min = min;
+			this.max = max;
+		}
+
+		public void set(double newValue) {
+			newValue = Math.max(min, Math.min(max, newValue));
+			if (isInt) {
+				newValue = Math.round(newValue);
+			}
+			value = newValue;
+		}
+
+		public String format() {
+			if (isInt) {
+				return Long.toString(Math.round(value));
+			}
+			// three decimal places is plenty, and it keeps the diffs readable
+			return Double.toString(Math.round(value * 1000) / 1000.0);
+		}
+	}
+
+	private final List<String> sourceLines;
+	private final List<Parameter> parameters;
+
+	private ParameterSet(List<String> sourceLines, List<Parameter> parameters) {
+		this.sourceLines = sourceLines;
+		this.parameters = parameters;
+	}
+
+	public static ParameterSet parse(File parametersFile) throws IOException {
+		List<String> lines = new ArrayList<String>();
+		List<Parameter> parameters = new ArrayList<Parameter>();
+		BufferedReader in = new BufferedReader(new FileReader(parametersFile));
+		try {
+			String line;
+			while ((line = in.readLine()) != null) {
+				lines.add(line);
+				Matcher m = DECLARATION.matcher(line);
+				if (m.find()) {
+					parameters.add(new Parameter(m.group(3), m.group(2).equals("int"), Double.parseDouble(m.group(4)), Double
+							.parseDouble(m.group(6)), Double.parseDouble(m.group(7))));
+				}
+			}
+		} finally {
+			in.close();
+		}
+		return new ParameterSet(lines, parameters);
+	}
+
+	public ParameterSet copy() {
+		List<Parameter> copied = new ArrayList<Parameter>();
+		for (Parameter p : parameters) {
+			copied.add(new Parameter(p.name, p.isInt, p.value, p.min, p.max));
+		}
+		return new ParameterSet(sourceLines, copied);
+	}
+
+	public List<Parameter> getParameters() {
+		return parameters;
+	}
+
+	public Parameter get(String name) {
+		for (Parameter p : parameters) {
+			if (p.name.equals(name)) {
+				return p;
+			}
+		}
+		return null;
+	}
+
+	// writes out Parameters.java with our values substituted in, and the package renamed (for candidate teams)
+	public void writeSource(File file, String originalPackage, String newPackage) throws IOException {
+		PrintWriter out = new PrintWriter(new FileWriter(file));
+		try {
+			for (String line : sourceLines) {
+				Matcher m = DECLARATION.matcher(line);
+				if (m.find()) {
+					Parameter p = get(m.group(3));
+					line = line.substring(0, m.start()) + m.group(1) + p.format() + m.group(5);
+				} else if (line.startsWith("package " + originalPackage + ";")) {
+					line = "package " + newPackage + ";";
+				}
+				out.println(line);
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	public void load(File propertiesFile) throws IOException {
+		Properties props = new Properties();
+		FileReader in = new FileReader(propertiesFile);
+		try {
+			props.load(in);
+		} finally {
+			in.close();
+		}
+		for (String name : props.stringPropertyNames()) {
+			Parameter p = get(name);
+			if (p == null) {
+				System.err.println("ignoring unknown parameter " + name);
+				continue;
+			}
+			p.set(Double.parseDouble(props.getProperty(name)));
+		}
+	}
+
+	public void save(File propertiesFile, String comment) throws IOException {
+		PrintWriter out = new PrintWriter(new FileWriter(propertiesFile));
+		try {
+			out.println("# " + comment);
+			for (Parameter p : parameters) {
+				out.println(p.name + "=" + p.format());
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder();
+		for (Parameter p : parameters) {
+			if (result.length() > 0) {
+				result.append(", ");
+			}
+			result.append(p.name).append('=').append(p.format());
+		}
+		return result.toString();
+	}
+}
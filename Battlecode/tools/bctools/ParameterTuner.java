@@ -0,0 +1,303 @@
+package bctools;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+/**
+ * Searches for better values of the constants in a team's Parameters.java by playing lots of matches.
+ *
+ * It's a (1+lambda) hill-climber: each generation we mutate the current best set a few different ways, build each mutation as its
+ * own copy of the team, play all of them against the opponents in parallel, and keep the best one if it beats the current set. The
+ * current set plays again every generation too, and its fitness is the average over all of its evaluations, so one lucky run can't
+ * keep it on top forever. If nothing improves, the mutations get smaller.
+ *
+ * Maps are grouped into classes by subdirectory (so maps/open/*.xml and maps/walled/*.xml are tuned separately), or if the map
+ * directory has no subdirectories, all the maps are one class. The best set for each class is saved as a properties file, which
+ * "ant -Dparams=file apply-parameters" will write back into the team.
+ *
+ * Usage:
+ *
+ * java bctools.ParameterTuner tune team mapDir opponents generations population threads outputDir
+ *
+ * java bctools.ParameterTuner apply team propertiesFile
+ */
+public class ParameterTuner {
+
+	private static final String CANDIDATE_PREFIX = "tune";
+
+	private final String team;
+	private final File teamsDir;
+	private final File binDir;
+	private final List<String> opponents;
+	private final int populationSize;
+	private final int numThreads;
+	private final Random gen = new Random(379);
+
+	private int candidateCounter = 0;
+
+	public ParameterTuner(String team, File teamsDir, File binDir, List<String> opponents, int populationSize, int numThreads) {
+		this.team = team;
+		this.teamsDir = teamsDir;
+		this.binDir = binDir;
+		this.opponents = opponents;
+		this.populationSize = populationSize;
+		this.numThreads = TournamentRunner.defaultThreads(numThreads);
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length >= 3 && args[0].equals("apply")) {
+			File parametersFile = new File(new File("teams", args[1]), "Parameters.java");
+			ParameterSet params = ParameterSet.parse(parametersFile);
+			params.load(new File(args[2]));
+			params.writeSource(parametersFile, args[1], args[1]);
+			System.out.println("wrote " + parametersFile + ": " + params);
+			return;
+		}
+		if (args.length < 8 || !args[0].equals("tune")) {
+			System.err.println("usage: ParameterTuner tune team mapDir opponents generations population threads outputDir");
+			System.err.println("       ParameterTuner apply team propertiesFile");
+			System.exit(1);
+		}
+
+		String team = args[1];
+		File mapDir = new File(args[2]);
+		if (!mapDir.isDirectory()) {
+			System.err.println("map directory " + mapDir.getAbsolutePath() + " doesn't exist");
+			System.exit(1);
+		}
+		List<String> opponents = TournamentRunner.splitList(args[3]);
+		int generations = Integer.parseInt(args[4]);
+		int population = Integer.parseInt(args[5]);
+		int threads = Integer.parseInt(args[6]);
+		File outputDir = new File(args[7]);
+		if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+			throw new IOException("couldn't create " + outputDir);
+		}
+
+		ParameterTuner tuner = new ParameterTuner(team, new File("teams"), new File("bin"), opponents, population, threads);
+		ParameterSet base = ParameterSet.parse(new File(new File("teams", team), "Parameters.java"));
+
+		// each subdirectory is its own class of maps
+		File[] classDirs = mapDir.listFiles(new FileFilter() {
+			@Override
+			public boolean accept(File f) {
+				return f.isDirectory();
+			}
+		});
+		if (classDirs == null || classDirs.length == 0) {
+			classDirs = new File[] { mapDir };
+		}
+
+		try {
+			for (File classDir : classDirs) {
+				List<String> maps = TournamentRunner.listMaps(classDir.getPath());
+				if (maps.isEmpty()) {
+					continue;
+				}
+				String className = classDir.getName();
+				MatchRunner runner = new MatchRunner(new File("bc.conf"), classDir.getPath(), new File(outputDir, className),
+						System.getProperty("java.class.path"), "256m");
+				System.out.println("tuning " + team + " on map class " + className + " (" + maps.size() + " maps)");
+				ParameterSet best = tuner.climb(base, runner, maps, generations);
+				best.save(new File(outputDir, className + ".properties"), "best parameters for " + team + " on " + maps);
+			}
+		} finally {
+			tuner.deleteCandidates();
+		}
+	}
+
+	public ParameterSet climb(ParameterSet start, MatchRunner runner, List<String> maps, int generations) throws Exception {
+		ParameterSet current = start.copy();
+		double currentFitness = evaluate(listOf(current), runner, maps)[0];
+		// the sum of every evaluation of the current set, so its fitness is an average instead of its best showing
+		double currentFitnessTotal = currentFitness;
+		int currentEvaluations = 1;
+		System.out.println("starting fitness " + currentFitness + ": " + current);
+
+		// mutation size, as a fraction of each parameter's range
+		double stepSize = 0.25;
+		for (int generation = 0; generation < generations; generation++) {
+			// the current set goes first, so it gets played again alongside its mutations
+			List<ParameterSet> candidates = new ArrayList<ParameterSet>();
+			candidates.add(current);
+			for (int i = 0; i < populationSize; i++) {
+				candidates.add(mutate(current, stepSize));
+			}
+			double[] fitness = evaluate(candidates, runner, maps);
+			currentFitnessTotal += fitness[0];
+			currentEvaluations++;
+			currentFitness = currentFitnessTotal / currentEvaluations;
+
+			int bestIndex = 1;
+			for (int i = 2; i < fitness.length; i++) {
+				if (fitness[i] > fitness[bestIndex]) {
+					bestIndex = i;
+				}
+			}
+			if (fitness[bestIndex] > currentFitness) {
+				current = candidates.get(bestIndex);
+				currentFitness = fitness[bestIndex];
+				currentFitnessTotal = currentFitness;
+				currentEvaluations = 1;
+			} else {
+				// we're probably near a local optimum, so take smaller steps
+				stepSize = Math.max(0.02, stepSize * 0.7);
+			}
+			System.out.println("generation " + generation + ": fitness " + currentFitness + ", step " + stepSize + ": " + current);
+		}
+		return current;
+	}
+
+	private ParameterSet mutate(ParameterSet original, double stepSize) {
+		ParameterSet result = original.copy();
+		List<ParameterSet.Parameter> params = result.getParameters();
+		// only nudge a few parameters at a time, otherwise it's hard to tell what helped
+		int numToChange = 1 + gen.nextInt(Math.min(3, params.size()));
+		for (int i = 0; i < numToChange; i++) {
+			ParameterSet.Parameter p = params.get(gen.nextInt(params.size()));
+			double delta = gen.nextGaussian() * stepSize * (p.max - p.min);
+			if (p.isInt && Math.abs(delta) < 1) {
+				delta = delta < 0 ? -1 : 1;
+			}
+			p.set(p.value + delta);
+		}
+		return result;
+	}
+
+	// plays every candidate against every opponent on every map (on both sides), and returns the win rate of each
+	private double[] evaluate(List<ParameterSet> candidates, MatchRunner runner, List<String> maps) throws Exception {
+		List<String> names = new ArrayList<String>();
+		List<Callable<MatchResult>> matches = new ArrayList<Callable<MatchResult>>();
+		for (ParameterSet candidate : candidates) {
+			String name = buildCandidate(candidate);
+			names.add(name);
+			for (String opponent : opponents) {
+				for (String map : maps) {
+					matches.add(TournamentRunner.createMatch(runner, name, opponent, map));
+					matches.add(TournamentRunner.createMatch(runner, opponent, name, map));
+				}
+			}
+		}
+
+		List<MatchResult> results = TournamentRunner.runAll(matches, numThreads);
+
+		double[] fitness = new double[candidates.size()];
+		for (int i = 0; i < names.size(); i++) {
+			String name = names.get(i);
+			int wins = 0;
+			int games = 0;
+			double speedBonus = 0;
+			for (MatchResult result : results) {
+				if (!result.isValid() || (!result.teamA.equals(name) && !result.teamB.equals(name))) {
+					continue;
+				}
+				games++;
+				if (result.didWin(name)) {
+					wins++;
+					// break ties between equally good candidates in favor of the one that wins faster
+					speedBonus += 1.0 / Math.max(1, result.rounds);
+				}
+			}
+			fitness[i] = games == 0 ? 0 : (wins + speedBonus) / games;
+		}
+		return fitness;
+	}
+
+	// copies the team into a new package with the candidate's parameters, and compiles it
+	private String buildCandidate(ParameterSet candidate) throws IOException {
+		String name = CANDIDATE_PREFIX + (candidateCounter++);
+		File sourceDir = new File(teamsDir, team);
+		File candidateDir = new File(teamsDir, name);
+		if (!candidateDir.isDirectory() && !candidateDir.mkdirs()) {
+			throw new IOException("couldn't create " + candidateDir);
+		}
+
+		List<String> sourceFiles = new ArrayList<String>();
+		for (File source : sourceDir.listFiles()) {
+			if (!source.getName().endsWith(".java")) {
+				continue;
+			}
+			File copy = new File(candidateDir, source.getName());
+			if (source.getName().equals("Parameters.java")) {
+				candidate.writeSource(copy, team, name);
+			} else {
+				copyWithPackage(source, copy, team, name);
+			}
+			sourceFiles.add(copy.getPath());
+		}
+
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		if (compiler == null) {
+			throw new IOException("no java compiler available. run this with a JDK, not a JRE.");
+		}
+		List<String> compilerArgs = new ArrayList<String>();
+		compilerArgs.add("-nowarn");
+		compilerArgs.add("-source");
+		compilerArgs.add("1.7");
+		compilerArgs.add("-target");
+		compilerArgs.add("1.7");
+		compilerArgs.add("-cp");
+		compilerArgs.add(System.getProperty("java.class.path"));
+		compilerArgs.add("-d");
+		compilerArgs.add(binDir.getPath());
+		compilerArgs.addAll(sourceFiles);
+		if (compiler.run(null, null, null, compilerArgs.toArray(new String[compilerArgs.size()])) != 0) {
+			throw new IOException("couldn't compile candidate " + name);
+		}
+		return name;
+	}
+
+	private static void copyWithPackage(File source, File dest, String originalPackage, String newPackage) throws IOException {
+		BufferedReader in = new BufferedReader(new FileReader(source));
+		PrintWriter out = new PrintWriter(new FileWriter(dest));
+		try {
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (line.startsWith("package " + originalPackage + ";")) {
+					line = "package " + newPackage + ";";
+				} else if (line.startsWith("import " + originalPackage + ".")) {
+					line = "import " + newPackage + "." + line.substring(("import " + originalPackage + ".").length());
+				}
+				out.println(line);
+			}
+		} finally {
+			in.close();
+			out.close();
+		}
+	}
+
+	private void deleteCandidates() {
+		for (int i = 0; i < candidateCounter; i++) {
+			deleteRecursively(new File(teamsDir, CANDIDATE_PREFIX + i));
+			deleteRecursively(new File(binDir, CANDIDATE_PREFIX + i));
+		}
+	}
+
+	private static void deleteRecursively(File f) {
+		File[] children = f.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				deleteRecursively(child);
+			}
+		}
+		f.delete();
+	}
+
+	private static List<ParameterSet> listOf(ParameterSet params) {
+		List<ParameterSet> result = new ArrayList<ParameterSet>();
+		result.add(params);
+		return result;
+	}
+}
@@ -0,0 +1,257 @@
+package bctools;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Plays a round-robin tournament between a set of teams on a set of maps, and prints a win-rate matrix.
+ *
+ * Every match runs in its own server JVM, and we keep one of those running per core, so a full sweep goes about as fast as the
+ * box allows. Run it through ant (see the "tournament" target in build.xml), or directly:
+ *
+ * java bctools.TournamentRunner teams maps threads outputDir
+ *
+ * where teams is a comma-separated list of team packages, maps is either a directory of map xml files or a comma-separated list
+ * of map names (the built-in maps work too), and threads <= 0 means one per core.
+ */
+public class TournamentRunner {
+
+	public static final String DEFAULT_TEAMS = "dronerush,bloombot,soldierrush,betterframework,examplefuncsplayer";
+
+	private final List<String> teams;
+	private final List<String> maps;
+	private final int numThreads;
+	private final boolean playBothSides;
+	private final MatchRunner matchRunner;
+
+	public TournamentRunner(List<String> teams, List<String> maps, int numThreads, boolean playBothSides, MatchRunner matchRunner) {
+		this.teams = teams;
+		this.maps = maps;
+		this.numThreads = numThreads;
+		this.playBothSides = playBothSides;
+		this.matchRunner = matchRunner;
+	}
+
+	public static void main(String[] args) throws Exception {
+		String teamArg = args.length > 0 ? args[0] : DEFAULT_TEAMS;
+		String mapArg = args.length > 1 ? args[1] : "maps";
+		int numThreads = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+		File outputDir = new File(args.length > 3 ? args[3] : "matches/tournament");
+		boolean playBothSides = args.length > 4 ? Boolean.parseBoolean(args[4]) : true;
+
+		List<String> teams = splitList(teamArg);
+		File mapDir = new File(mapArg);
+		if (args.length <= 1 && !mapDir.isDirectory()) {
+			System.err.println("no maps given, and the default map directory " + mapDir.getAbsolutePath() + " doesn't exist");
+			System.exit(1);
+		}
+		List<String> maps = listMaps(mapArg);
+		if (teams.size() < 2 || maps.isEmpty()) {
+			System.err.println("need at least two teams and one map (got teams=" + teams + ", maps=" + maps + ")");
+			System.exit(1);
+		}
+
+		MatchRunner runner = new MatchRunner(new File("bc.conf"), mapDir.isDirectory() ? mapDir.getPath() : "maps", outputDir,
+				System.getProperty("java.class.path"), "256m");
+		TournamentRunner tournament = new TournamentRunner(teams, maps, numThreads, playBothSides, runner);
+
+		long startTime = System.currentTimeMillis();
+		List<MatchResult> results = tournament.run();
+		long millis = System.currentTimeMillis() - startTime;
+
+		tournament.writeCsv(results, new File(outputDir, "results.csv"));
+		tournament.printSummary(results);
+		System.out.println(results.size() + " matches in " + (millis / 1000) + "s");
+	}
+
+	public static List<String> splitList(String arg) {
+		List<String> result = new ArrayList<String>();
+		for (String s : arg.split(",")) {
+			if (!s.trim().isEmpty()) {
+				result.add(s.trim());
+			}
+		}
+		return result;
+	}
+
+	public static List<String> listMaps(String mapArg) {
+		// if this is a directory, use every map in it. otherwise it's a list of names.
+		File mapDir = new File(mapArg);
+		if (!mapDir.isDirectory()) {
+			// map names never have slashes in them, so this was meant to be a directory. don't go looking for a map called that.
+			if (mapArg.indexOf('/') >= 0 || mapArg.indexOf(File.separatorChar) >= 0) {
+				throw new IllegalArgumentException("map directory " + mapDir.getAbsolutePath() + " doesn't exist");
+			}
+			return splitList(mapArg);
+		}
+		String[] files = mapDir.list(new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				return name.endsWith(".xml");
+			}
+		});
+		Arrays.sort(files);
+		List<String> result = new ArrayList<String>();
+		for (String file : files) {
+			result.add(file.substring(0, file.length() - ".xml".length()));
+		}
+		return result;
+	}
+
+	public static int defaultThreads(int numThreads) {
+		if (numThreads <= 0) {
+			return Runtime.getRuntime().availableProcessors();
+		}
+		return numThreads;
+	}
+
+	public List<MatchResult> run() throws InterruptedException, ExecutionException {
+		List<Callable<MatchResult>> matches = new ArrayList<Callable<MatchResult>>();
+		for (int i = 0; i < teams.size(); i++) {
+			for (int j = i + 1; j < teams.size(); j++) {
+				for (String map : maps) {
+					matches.add(createMatch(teams.get(i), teams.get(j), map));
+					// maps are symmetric, but spawn order isn't, so it's fairer to play both sides
+					if (playBothSides) {
+						matches.add(createMatch(teams.get(j), teams.get(i), map));
+					}
+				}
+			}
+		}
+		return runAll(matches, defaultThreads(numThreads));
+	}
+
+	public static Callable<MatchResult> createMatch(final MatchRunner runner, final String teamA, final String teamB, final String map) {
+		return new Callable<MatchResult>() {
+			@Override
+			public MatchResult call() throws Exception {
+				MatchResult result = runner.run(teamA, teamB, map);
+				System.out.println(result);
+				return result;
+			}
+		};
+	}
+
+	private Callable<MatchResult> createMatch(String teamA, String teamB, String map) {
+		return createMatch(matchRunner, teamA, teamB, map);
+	}
+
+	public static List<MatchResult> runAll(List<Callable<MatchResult>> matches, int numThreads)
+			throws InterruptedException, ExecutionException {
+		ExecutorService pool = Executors.newFixedThreadPool(numThreads);
+		try {
+			List<Future<MatchResult>> futures = pool.invokeAll(matches);
+			List<MatchResult> results = new ArrayList<MatchResult>();
+			for (Future<MatchResult> future : futures) {
+				results.add(future.get());
+			}
+			return results;
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	public void writeCsv(List<MatchResult> results, File file) throws IOException {
+		PrintWriter out = new PrintWriter(new FileWriter(file));
+		try {
+			out.println(MatchResult.csvHeader());
+			for (MatchResult result : results) {
+				out.println(result.toCsv());
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	public void printSummary(List<MatchResult> results) {
+		// wins[i][j] is the number of times team i beat team j
+		int n = teams.size();
+		int[][] wins = new int[n][n];
+		int[][] games = new int[n][n];
+		long[] totalRounds = new long[n];
+		int[] totalGames = new int[n];
+		// how fast the distance fields converged, over the games where the team reported it
+		long[] totalConverged = new long[n];
+		int[] convergedGames = new int[n];
+		int errors = 0;
+		for (MatchResult result : results) {
+			if (!result.isValid()) {
+				errors++;
+				continue;
+			}
+			int a = teams.indexOf(result.teamA);
+			int b = teams.indexOf(result.teamB);
+			games[a][b]++;
+			games[b][a]++;
+			if (result.winner == 'A') {
+				wins[a][b]++;
+			} else {
+				wins[b][a]++;
+			}
+			totalRounds[a] += result.rounds;
+			totalRounds[b] += result.rounds;
+			totalGames[a]++;
+			totalGames[b]++;
+			if (result.convergedRoundA > 0) {
+				totalConverged[a] += result.convergedRoundA;
+				convergedGames[a]++;
+			}
+			if (result.convergedRoundB > 0) {
+				totalConverged[b] += result.convergedRoundB;
+				convergedGames[b]++;
+			}
+		}
+
+		int width = 8;
+		for (String team : teams) {
+			width = Math.max(width, team.length() + 2);
+		}
+		String nameFormat = "%-" + width + "s";
+		String cellFormat = "%" + width + "s";
+
+		System.out.println();
+		System.out.println("win rate of row vs. column");
+		StringBuilder header = new StringBuilder(String.format(nameFormat, ""));
+		for (String team : teams) {
+			header.append(String.format(cellFormat, team));
+		}
+		header.append(String.format(cellFormat, "overall")).append(String.format(cellFormat, "avg rnd"))
+				.append(String.format(cellFormat, "avg conv"));
+		System.out.println(header);
+
+		for (int i = 0; i < n; i++) {
+			StringBuilder row = new StringBuilder(String.format(nameFormat, teams.get(i)));
+			int rowWins = 0;
+			int rowGames = 0;
+			for (int j = 0; j < n; j++) {
+				if (i == j || games[i][j] == 0) {
+					row.append(String.format(cellFormat, "-"));
+				} else {
+					row.append(String.format(cellFormat, String.format("%.2f", (double) wins[i][j] / games[i][j])));
+				}
+				rowWins += wins[i][j];
+				rowGames += games[i][j];
+			}
+			row.append(String.format(cellFormat, rowGames == 0 ? "-" : String.format("%.2f", (double) rowWins / rowGames)));
+			row.append(String.format(cellFormat, totalGames[i] == 0 ? "-" : Long.toString(totalRounds[i] / totalGames[i])));
+			row.append(String.format(cellFormat,
+					convergedGames[i] == 0 ? "-" : Long.toString(totalConverged[i] / convergedGames[i])));
+			System.out.println(row);
+		}
+		if (errors > 0) {
+			System.out.println(errors + " matches didn't report a winner. check the logs in the output directory.");
+		}
+		System.out.println("avg conv is the average round a team's distance fields converged, in the games where it said so.");
+	}
+}